@@ -0,0 +1,80 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+
+/**
+ * A whole decision through the Process actors: restart, launch, elect process 1
+ * right away and wait until a majority has decided. Run per dispatcher profile,
+ * the spread at N=100 is what scheduling costs on top of the protocol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActorRoundTripBenchmark {
+	private static final long TIMEOUT_MS = 10000;
+
+	@Param({ "3", "10", "100" })
+	public int n;
+
+	// Profile from consensus-dispatchers in application.conf, see SweepConfig
+	@Param({ "default", "fork-join-1", "fork-join-100", "thread-pool", "affinity", "priority", "pinned" })
+	public String dispatcher;
+
+	private ActorSystem system;
+	private ArrayList<ActorRef> references;
+	private Experiment experiment;
+	private final SplittableRandom seeds = new SplittableRandom(42);
+
+	@Setup
+	public void setup() {
+		system = ActorSystem.create("bench");
+		experiment = new Experiment(new SweepConfig.Combination(0, n, 0, 0, 0, Dissemination.ALL_TO_ALL, 0, 0, 0, false,
+				CrashPoint.NONE, Backoff.OFF, false, dispatcher), 1);
+		references = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			references.add(system.actorOf(Process.createActor(i + 1, n, 0, 0, 0, experiment), "" + i));
+		}
+		Members m = new Members(references);
+		for (ActorRef actor : references) {
+			actor.tell(m, ActorRef.noSender());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		system.terminate();
+	}
+
+	@Benchmark
+	public boolean decision() throws InterruptedException {
+		int epoch = experiment.nextEpoch();
+		Main.restartProcesses(references, epoch);
+		experiment.startRun();
+		for (ActorRef actor : references) {
+			actor.tell(new LaunchMsg(epoch, seeds.nextLong()), ActorRef.noSender());
+		}
+		references.get(0).tell(new LeaderSelectionMsg(epoch, 1), ActorRef.noSender());
+		return experiment.decisionBarrier().await(TIMEOUT_MS);
+	}
+}
@@ -0,0 +1,48 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * Env that drops every outgoing message and only counts them, so a benchmark
+ * measures the handler and not the transport
+ */
+class CountingEnv implements ProcessCore.Env {
+	long sent;
+	long decisions;
+
+	@Override
+	public void send(int to, Object msg) {
+		sent++;
+	}
+
+	@Override
+	public void broadcast(Object msg) {
+		sent++;
+	}
+
+	@Override
+	public void schedule(long delayMs, Object msg) {
+	}
+
+	@Override
+	public long nowNanos() {
+		return 0;
+	}
+
+	@Override
+	public void reportDelay() {
+	}
+
+	@Override
+	public void countDecision() {
+		decisions++;
+	}
+
+	@Override
+	public void deliver(int slot, Value value, List<String> commands) {
+	}
+
+	@Override
+	public void log(String template, Object... args) {
+	}
+}
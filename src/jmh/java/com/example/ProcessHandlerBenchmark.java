@@ -0,0 +1,123 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one incoming message in each ProcessCore handler. Messages are built
+ * up front so the allocation rate reported by -prof gc is the handler's own.
+ * The proposer-side benchmarks amortise the quorum that completes every N/2 messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessHandlerBenchmark {
+	private static final int RING = 1 << 16;
+	private static final RestartMsg RESTART = new RestartMsg();
+	private static final LaunchMsg LAUNCH = new LaunchMsg(0);
+
+	@Param({ "3", "10", "100", "1000" })
+	public int n;
+
+	private CountingEnv env;
+	private ProcessCore acceptor;
+	private ProcessCore proposer;
+	private ReadMsg[] reads;
+	private ImposeMsg[] imposes;
+	private GatherMsg gather;
+	private GatherMsg firstGather;
+	private AckMsg ack;
+	private int next;
+	private int sender;
+	private int ballot;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		env = new CountingEnv();
+		acceptor = new ProcessCore(env, 2, n, 0, 0, 0, 0, 1, 0);
+		proposer = new ProcessCore(env, 1, n, 0, 0, 0, 0, 1, 0);
+		// Strictly increasing ballots so every request takes the accepting branch
+		reads = new ReadMsg[RING];
+		imposes = new ImposeMsg[RING];
+		for (int i = 0; i < RING; i++) {
+			reads[i] = new ReadMsg(0, (i + 1) * n + 1);
+			imposes[i] = new ImposeMsg(0, (i + 1) * n + 1, Value.ONE);
+		}
+		firstGather = new GatherMsg(0, 1, 0, null);
+		gather = firstGather;
+		ack = new AckMsg(0, 1);
+		next = 0;
+		sender = 1;
+		ballot = 0;
+	}
+
+	private int nextIndex() {
+		if (++next == RING) {
+			next = 0;
+			acceptor.receive(RESTART, -1);
+		}
+		return next;
+	}
+
+	@Benchmark
+	public ProcessCore readRequest() {
+		acceptor.receive(reads[nextIndex()], 0);
+		return acceptor;
+	}
+
+	@Benchmark
+	public ProcessCore imposeRequest() {
+		acceptor.receive(imposes[nextIndex()], 0);
+		return acceptor;
+	}
+
+	@Benchmark
+	public ProcessCore readResponse() {
+		if (sender == 1) {
+			// New read phase: abort the previous ballot so the proposer retries with ballot + N
+			if (ballot == 0) {
+				proposer.receive(RESTART, -1);
+				proposer.receive(LAUNCH, -1);
+				ballot = 1;
+			} else {
+				proposer.receive(new AbortMsg(0, ballot), 1);
+				ballot += n;
+			}
+			gather = new GatherMsg(0, ballot, 0, null); // answers only count for the current ballot
+		}
+		proposer.receive(gather, sender);
+		sender = sender < n / 2 ? sender + 1 : 1;
+		return proposer;
+	}
+
+	@Benchmark
+	public ProcessCore ackResponse() {
+		if (sender == 1) {
+			// Bring a fresh proposer to the impose phase, then feed acks until it decides
+			proposer.receive(RESTART, -1);
+			proposer.receive(LAUNCH, -1);
+			ballot = 0;
+			for (int i = 1; i <= n / 2; i++) {
+				proposer.receive(firstGather, i);
+			}
+		}
+		proposer.receive(ack, sender);
+		sender = sender < n / 2 ? sender + 1 : 1;
+		return proposer;
+	}
+}
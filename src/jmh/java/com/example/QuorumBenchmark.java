@@ -0,0 +1,59 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One uncontended decision at the proposer: propose, collect a read quorum of
+ * N/2 GatherMsg, impose and collect N/2 AckMsg.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuorumBenchmark {
+	private static final RestartMsg RESTART = new RestartMsg();
+	private static final LaunchMsg LAUNCH = new LaunchMsg(0);
+
+	@Param({ "3", "10", "100", "1000", "10000" })
+	public int n;
+
+	private CountingEnv env;
+	private ProcessCore proposer;
+	private GatherMsg gather;
+	private AckMsg ack;
+
+	@Setup
+	public void setup() {
+		env = new CountingEnv();
+		proposer = new ProcessCore(env, 1, n, 0, 0, 0, 0, 1, 0);
+		gather = new GatherMsg(0, 1, 0, null);
+		ack = new AckMsg(0, 1);
+	}
+
+	@Benchmark
+	public long decision() {
+		proposer.receive(RESTART, -1);
+		proposer.receive(LAUNCH, -1);
+		for (int i = 1; i <= n / 2; i++) {
+			proposer.receive(gather, i);
+		}
+		for (int i = 1; i <= n / 2; i++) {
+			proposer.receive(ack, i);
+		}
+		return env.decisions;
+	}
+}
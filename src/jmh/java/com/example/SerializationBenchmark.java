@@ -0,0 +1,187 @@
+package com.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Encode and decode cost of one consensus message with ConsensusSerializer
+ * (into a reused ByteBuffer, as Artery does), Jackson JSON and Java serialization.
+ * The encoded size of each codec and message is printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({ "binary", "jackson", "java" })
+	public String codec;
+
+	@Param({ "read", "gather", "impose", "decide", "batch" })
+	public String message;
+
+	private final ConsensusSerializer serializer = new ConsensusSerializer();
+	private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+	private ObjectMapper mapper;
+	private Object msg;
+	private byte[] encoded;
+
+	@Setup
+	public void setup() throws IOException {
+		mapper = jacksonMapper();
+		msg = message(message);
+		encoded = toBytes(msg);
+		System.out.printf("%n%s %s: %d bytes%n", codec, message, encoded.length);
+	}
+
+	@Benchmark
+	public Object encode() throws IOException {
+		if (codec.equals("binary")) {
+			buffer.clear();
+			serializer.toBinary(msg, buffer);
+			return buffer;
+		}
+		return toBytes(msg);
+	}
+
+	@Benchmark
+	public Object decode() throws IOException, ClassNotFoundException {
+		switch (codec) {
+		case "binary":
+			return serializer.fromBinary(ByteBuffer.wrap(encoded), "");
+		case "jackson":
+			return mapper.readValue(encoded, msg.getClass());
+		default:
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(encoded))) {
+				return in.readObject();
+			}
+		}
+	}
+
+	static Object message(String name) {
+		switch (name) {
+		case "read":
+			return new ReadMsg(3, 1041);
+		case "gather":
+			return new GatherMsg(3, 1041, 937, Value.ONE);
+		case "impose":
+			return new ImposeMsg(3, 1041, Value.ONE);
+		case "decide":
+			return new DecideMsg(3, Value.ONE, 41, 1041);
+		case "batch":
+			// A proposal carrying 64 batched client commands
+			java.util.List<String> commands = new java.util.ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				commands.add("cmd-" + i);
+			}
+			return new ImposeMsg(3, 1041, Batch.encode(commands));
+		default:
+			throw new IllegalArgumentException(name);
+		}
+	}
+
+	private byte[] toBytes(Object o) throws IOException {
+		switch (codec) {
+		case "binary":
+			return serializer.toBinary(o);
+		case "jackson":
+			return mapper.writeValueAsBytes(o);
+		default:
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(o);
+			}
+			return bytes.toByteArray();
+		}
+	}
+
+	// Jackson as akka-serialization-jackson would use it: creators for the final fields, Value as a number or base64
+	private static ObjectMapper jacksonMapper() {
+		SimpleModule values = new SimpleModule();
+		values.addSerializer(Value.class, new StdSerializer<Value>(Value.class) {
+			@Override
+			public void serialize(Value v, JsonGenerator gen, SerializerProvider provider) throws IOException {
+				if (v instanceof Value.LongValue) {
+					gen.writeNumber(((Value.LongValue) v).value);
+				} else {
+					gen.writeBinary(((Value.BytesValue) v).bytes);
+				}
+			}
+		});
+		values.addDeserializer(Value.class, new StdDeserializer<Value>(Value.class) {
+			@Override
+			public Value deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+				if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+					return Value.of(p.getLongValue());
+				}
+				return Value.wrap(p.getBinaryValue());
+			}
+		});
+		return new ObjectMapper()
+				.registerModule(values)
+				.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+				.addMixIn(ReadMsg.class, ReadMixin.class)
+				.addMixIn(GatherMsg.class, GatherMixin.class)
+				.addMixIn(ImposeMsg.class, ImposeMixin.class)
+				.addMixIn(DecideMsg.class, DecideMixin.class);
+	}
+
+	abstract static class ReadMixin {
+		@JsonCreator
+		ReadMixin(@JsonProperty("slot") int slot, @JsonProperty("ballot") int ballot) {
+		}
+	}
+
+	abstract static class GatherMixin {
+		@JsonCreator
+		GatherMixin(@JsonProperty("slot") int slot, @JsonProperty("ballot") int ballot,
+				@JsonProperty("imposeballot") int imposeballot, @JsonProperty("estimate") Value estimate) {
+		}
+	}
+
+	abstract static class ImposeMixin {
+		@JsonCreator
+		ImposeMixin(@JsonProperty("slot") int slot, @JsonProperty("ballot") int ballot,
+				@JsonProperty("proposal") Value proposal) {
+		}
+	}
+
+	abstract static class DecideMixin {
+		@JsonCreator
+		DecideMixin(@JsonProperty("slot") int slot, @JsonProperty("proposal") Value proposal, @JsonProperty("id") int id,
+				@JsonProperty("b") int b) {
+		}
+	}
+}
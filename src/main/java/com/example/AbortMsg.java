@@ -1,9 +1,28 @@
 package com.example;
 
-public class AbortMsg {
+public class AbortMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int slot;
 	public final int ballot;
+	public final int highest; // highest readballot/imposeballot of the acceptor, ballot when it gave no hint
 
 	public AbortMsg(int ballot) {
+		this(0, ballot);
+	}
+
+	public AbortMsg(int slot, int ballot) {
+		this(0, slot, ballot);
+	}
+
+	public AbortMsg(int epoch, int slot, int ballot) {
+		this(epoch, slot, ballot, ballot);
+	}
+
+	public AbortMsg(int epoch, int slot, int ballot, int highest) {
+		super(epoch);
+		this.slot = slot;
 		this.ballot = ballot;
+		this.highest = highest;
 	}
-}
\ No newline at end of file
+}
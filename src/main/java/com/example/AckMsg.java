@@ -1,9 +1,22 @@
 package com.example;
 
-public class AckMsg {
+public class AckMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int slot;
 	public final int ballot;
 
 	public AckMsg(int ballot) {
+		this(0, ballot);
+	}
+
+	public AckMsg(int slot, int ballot) {
+		this(0, slot, ballot);
+	}
+
+	public AckMsg(int epoch, int slot, int ballot) {
+		super(epoch);
+		this.slot = slot;
 		this.ballot = ballot;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package com.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Contention manager for proposers whose ballot was aborted. Instead of proposing
+ * again at once, which keeps N proposers that launched together aborting each
+ * other, retry k waits a random time in [0, min(maxMs, baseMs * 2^(k-1))] (full
+ * jitter). After maxRetries retries of a slot the process stops proposing on its
+ * own and leaves the slot to the leader; an elected leader never gives up.
+ *
+ * Written base:max:retries on the command line (--backoff 1:64:8); retries 0 means
+ * no cap, and "off" (or 0:0:0) keeps the immediate retry. The cap only comes with
+ * a wait, so base 0 takes no max or retries.
+ */
+public final class Backoff {
+	public static final Backoff OFF = new Backoff(0, 0, 0);
+
+	public final int baseMs; // 0 = retry at once
+	public final int maxMs;
+	public final int maxRetries; // 0 = no cap
+
+	public Backoff(int baseMs, int maxMs, int maxRetries) {
+		if (baseMs < 0 || maxMs < baseMs || maxRetries < 0) {
+			throw new IllegalArgumentException("Backoff needs 0 <= base <= max and retries >= 0, got " + baseMs + ":"
+					+ maxMs + ":" + maxRetries);
+		}
+		if (baseMs == 0 && (maxMs > 0 || maxRetries > 0)) {
+			throw new IllegalArgumentException("Backoff with base 0 is off and takes no max or retries, got 0:" + maxMs
+					+ ":" + maxRetries);
+		}
+		this.baseMs = baseMs;
+		this.maxMs = maxMs;
+		this.maxRetries = maxRetries;
+	}
+
+	public static Backoff parse(String s) {
+		if (s.trim().equalsIgnoreCase("off")) {
+			return OFF;
+		}
+		String[] parts = s.trim().split(":");
+		if (parts.length != 3) {
+			throw new IllegalArgumentException("Expected base:max:retries or off, got " + s);
+		}
+		return new Backoff(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+	}
+
+	public boolean enabled() {
+		return baseMs > 0;
+	}
+
+	// Wait before retry number retry (from 1), drawn from random
+	long delayMs(int retry, SplittableRandom random) {
+		long window = Math.min(maxMs, (long) baseMs << Math.min(retry - 1, 30));
+		return random.nextLong(window + 1);
+	}
+
+	// True once a proposer that is not the leader has retried as often as allowed
+	boolean givesUp(int retries) {
+		return maxRetries > 0 && retries > maxRetries;
+	}
+
+	@Override
+	public String toString() {
+		return enabled() ? baseMs + ":" + maxMs + ":" + maxRetries : "off";
+	}
+}
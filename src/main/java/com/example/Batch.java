@@ -0,0 +1,42 @@
+package com.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes several client commands into one proposal value: each command is its
+ * UTF-8 length as an int followed by the bytes
+ */
+public final class Batch {
+
+	private Batch() {
+	}
+
+	public static Value encode(List<String> commands) {
+		byte[][] encoded = new byte[commands.size()][];
+		int size = 0;
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = commands.get(i).getBytes(StandardCharsets.UTF_8);
+			size += Integer.BYTES + encoded[i].length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		for (byte[] c : encoded) {
+			buffer.putInt(c.length).put(c);
+		}
+		return Value.wrap(buffer.array());
+	}
+
+	public static List<String> decode(Value value) {
+		byte[] bytes = ((Value.BytesValue) value).bytes;
+		List<String> commands = new ArrayList<>();
+		int i = 0;
+		while (i < bytes.length) {
+			int len = ByteBuffer.wrap(bytes, i, Integer.BYTES).getInt();
+			commands.add(new String(bytes, i + Integer.BYTES, len, StandardCharsets.UTF_8));
+			i += Integer.BYTES + len;
+		}
+		return commands;
+	}
+}
@@ -0,0 +1,9 @@
+package com.example;
+
+public class BatchFlushMsg {
+	public final int generation;
+
+	public BatchFlushMsg(int generation) {
+		this.generation = generation;
+	}
+}
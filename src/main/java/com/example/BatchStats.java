@@ -0,0 +1,45 @@
+package com.example;
+
+/**
+ * Batch size and flush reason counters of one CommandBatcher
+ */
+public class BatchStats {
+	public long batches = 0;
+	public long commands = 0;
+	public int maxBatchSize = 0;
+	public final long[] flushes = new long[CommandBatcher.FlushReason.values().length];
+	public final long[] sizeBuckets = new long[32]; // bucket k counts batches of size in [2^k, 2^(k+1))
+
+	void record(int size, CommandBatcher.FlushReason reason) {
+		batches++;
+		commands += size;
+		maxBatchSize = Math.max(maxBatchSize, size);
+		flushes[reason.ordinal()]++;
+		sizeBuckets[31 - Integer.numberOfLeadingZeros(size)]++;
+	}
+
+	public BatchStats copy() {
+		BatchStats c = new BatchStats();
+		c.batches = batches;
+		c.commands = commands;
+		c.maxBatchSize = maxBatchSize;
+		System.arraycopy(flushes, 0, c.flushes, 0, flushes.length);
+		System.arraycopy(sizeBuckets, 0, c.sizeBuckets, 0, sizeBuckets.length);
+		return c;
+	}
+
+	public double averageBatchSize() {
+		return batches == 0 ? 0 : (double) commands / batches;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("batches=%d, commands=%d, avg size=%.1f, max size=%d", batches, commands,
+				averageBatchSize(), maxBatchSize));
+		for (CommandBatcher.FlushReason r : CommandBatcher.FlushReason.values()) {
+			sb.append(", flush ").append(r).append('=').append(flushes[r.ordinal()]);
+		}
+		return sb.toString();
+	}
+}
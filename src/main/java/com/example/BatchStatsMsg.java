@@ -0,0 +1,7 @@
+package com.example;
+
+/**
+ * Asks a process for a snapshot of its batching counters (replied with BatchStats)
+ */
+public class BatchStatsMsg {
+}
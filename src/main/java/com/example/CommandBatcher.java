@@ -0,0 +1,59 @@
+package com.example;
+
+import java.util.ArrayList;
+
+/**
+ * Collects submitted commands in front of propose and cuts them into batches
+ * once maxSize commands are buffered or the batch is maxDelayMs old.
+ */
+public class CommandBatcher {
+	public enum FlushReason { SIZE, TIME }
+
+	private final int maxSize;
+	private final long maxDelayMs;
+	private final ArrayList<String> buffer;
+	private int generation = 0; // bumped on every flush so timers of earlier batches are ignored
+	private final BatchStats stats = new BatchStats();
+
+	public CommandBatcher(int maxSize, long maxDelayMs) {
+		this.maxSize = maxSize;
+		this.maxDelayMs = maxDelayMs;
+		this.buffer = new ArrayList<>(maxSize);
+	}
+
+	// Returns true when the batch reached maxSize and should be flushed
+	public boolean add(String command) {
+		buffer.add(command);
+		return buffer.size() >= maxSize;
+	}
+
+	public Value flush(FlushReason reason) {
+		Value value = Batch.encode(buffer);
+		stats.record(buffer.size(), reason);
+		buffer.clear();
+		generation++;
+		return value;
+	}
+
+	// Drops buffered commands without counting them as a batch
+	public void clear() {
+		buffer.clear();
+		generation++;
+	}
+
+	public boolean isEmpty() {
+		return buffer.isEmpty();
+	}
+
+	public int generation() {
+		return generation;
+	}
+
+	public long maxDelayMs() {
+		return maxDelayMs;
+	}
+
+	public BatchStats stats() {
+		return stats;
+	}
+}
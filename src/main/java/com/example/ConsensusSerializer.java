@@ -0,0 +1,128 @@
+package com.example;
+
+import akka.actor.ActorRef;
+import akka.actor.ExtendedActorSystem;
+import akka.serialization.ByteBufferSerializer;
+import akka.serialization.Serialization;
+import akka.serialization.SerializerWithStringManifest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Akka serializer for the consensus messages, bound in application.conf. The
+ * MessageCodec type tag makes the manifest empty. Artery calls the ByteBuffer
+ * methods with buffers from its own pool, so a message is written straight into
+ * the outgoing frame; the byte[] path allocates exactly the encoded size.
+ * Members is handled here since its references are resolved through the actor system;
+ * the processes of a JVM all get the same view, so the last one decoded is shared.
+ */
+public class ConsensusSerializer extends SerializerWithStringManifest implements ByteBufferSerializer {
+	public static final int IDENTIFIER = 7411;
+
+	private final ExtendedActorSystem system; // null when used outside of Akka, e.g. in benchmarks
+	private volatile DecodedMembers lastMembers = null;
+
+	private static final class DecodedMembers {
+		final byte[][] paths;
+		final Members members;
+
+		DecodedMembers(byte[][] paths, Members members) {
+			this.paths = paths;
+			this.members = members;
+		}
+	}
+
+	public ConsensusSerializer() {
+		this(null);
+	}
+
+	public ConsensusSerializer(ExtendedActorSystem system) {
+		this.system = system;
+	}
+
+	@Override
+	public int identifier() {
+		return IDENTIFIER;
+	}
+
+	@Override
+	public String manifest(Object o) {
+		return "";
+	}
+
+	@Override
+	public byte[] toBinary(Object o) {
+		if (o instanceof Members) {
+			byte[][] paths = paths((Members) o);
+			int size = 1 + MessageCodec.varintSize(paths.length);
+			for (byte[] path : paths) {
+				size += MessageCodec.varintSize(path.length) + path.length;
+			}
+			ByteBuffer buf = ByteBuffer.allocate(size);
+			writeMembers(paths, buf);
+			return buf.array();
+		}
+		byte[] bytes = new byte[MessageCodec.size(o)];
+		MessageCodec.encode(o, ByteBuffer.wrap(bytes));
+		return bytes;
+	}
+
+	@Override
+	public Object fromBinary(byte[] bytes, String manifest) {
+		return fromBinary(ByteBuffer.wrap(bytes), manifest);
+	}
+
+	@Override
+	public void toBinary(Object o, ByteBuffer buf) {
+		if (o instanceof Members) {
+			writeMembers(paths((Members) o), buf);
+		} else {
+			MessageCodec.encode(o, buf);
+		}
+	}
+
+	@Override
+	public Object fromBinary(ByteBuffer buf, String manifest) {
+		if (buf.get(buf.position()) != MessageCodec.MEMBERS) {
+			return MessageCodec.decode(buf);
+		}
+		buf.get();
+		byte[][] paths = new byte[MessageCodec.getVarint(buf)][];
+		for (int i = 0; i < paths.length; i++) {
+			paths[i] = new byte[MessageCodec.getVarint(buf)];
+			buf.get(paths[i]);
+		}
+		DecodedMembers last = lastMembers;
+		if (last != null && Arrays.deepEquals(last.paths, paths)) {
+			return last.members; // N processes in this JVM, one view
+		}
+		ArrayList<ActorRef> references = new ArrayList<>(paths.length);
+		for (byte[] path : paths) {
+			references.add(system.provider().resolveActorRef(new String(path, StandardCharsets.UTF_8)));
+		}
+		Members members = new Members(references);
+		lastMembers = new DecodedMembers(paths, members);
+		return members;
+	}
+
+	// Full paths with address and uid, so the receiving JVM resolves the very same actors
+	private static byte[][] paths(Members members) {
+		byte[][] paths = new byte[members.references.size()][];
+		for (int i = 0; i < paths.length; i++) {
+			paths[i] = Serialization.serializedActorPath(members.references.get(i)).getBytes(StandardCharsets.UTF_8);
+		}
+		return paths;
+	}
+
+	private static void writeMembers(byte[][] paths, ByteBuffer buf) {
+		buf.put(MessageCodec.MEMBERS);
+		MessageCodec.putVarint(buf, paths.length);
+		for (byte[] path : paths) {
+			MessageCodec.putVarint(buf, path.length);
+			buf.put(path);
+		}
+	}
+}
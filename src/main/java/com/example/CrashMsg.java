@@ -1,9 +1,16 @@
 package com.example;
 
-public class CrashMsg {
-	private final boolean hasReceivedCrashMsg;
+public class CrashMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final boolean hasReceivedCrashMsg;
 
 	public CrashMsg(boolean hasReceivedCrashMsg) {
+		this(0, hasReceivedCrashMsg);
+	}
+
+	public CrashMsg(int epoch, boolean hasReceivedCrashMsg) {
+		super(epoch);
 		this.hasReceivedCrashMsg = hasReceivedCrashMsg;
 	}
 }
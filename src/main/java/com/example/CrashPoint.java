@@ -0,0 +1,29 @@
+package com.example;
+
+/**
+ * Phase at which a fault-prone process crashes on purpose: right after it sent
+ * the first message of that type, e.g. GATHER leaves the proposer holding a
+ * promise from a process that is gone. Comes on top of the per message ALPHA draw.
+ */
+public enum CrashPoint {
+	NONE(null),
+	READ(ReadMsg.class),
+	GATHER(GatherMsg.class),
+	IMPOSE(ImposeMsg.class),
+	ACK(AckMsg.class),
+	DECIDE(DecideMsg.class);
+
+	private final Class<?> type;
+
+	CrashPoint(Class<?> type) {
+		this.type = type;
+	}
+
+	public boolean after(Object sent) {
+		return type != null && type.isInstance(sent);
+	}
+
+	public static CrashPoint parse(String name) {
+		return valueOf(name.trim().toUpperCase());
+	}
+}
@@ -1,13 +1,26 @@
 package com.example;
 
-public class DecideMsg {
-	public final String proposal;
+public class DecideMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int slot;
+	public final Value proposal;
 	public int id;
 	public int b;
 
-	public DecideMsg(String proposal, int id, int b) {
+	public DecideMsg(Value proposal, int id, int b) {
+		this(0, proposal, id, b);
+	}
+
+	public DecideMsg(int slot, Value proposal, int id, int b) {
+		this(0, slot, proposal, id, b);
+	}
+
+	public DecideMsg(int epoch, int slot, Value proposal, int id, int b) {
+		super(epoch);
+		this.slot = slot;
 		this.id = id;
 		this.proposal = proposal;
 		this.b = b;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.example;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completed by the deciding processes; the harness blocks on it instead of polling a counter
+ */
+public class DecisionBarrier {
+	private final CountDownLatch latch;
+	private final AtomicInteger decisions = new AtomicInteger(0);
+
+	public DecisionBarrier(int required) {
+		this.latch = new CountDownLatch(required);
+	}
+
+	// Called by a process each time it decides
+	public void arrive() {
+		decisions.incrementAndGet();
+		latch.countDown();
+	}
+
+	// Blocks until the required number of decisions arrived, returns false on timeout
+	public boolean await(long timeoutMs) throws InterruptedException {
+		return latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+	}
+
+	public int decisions() {
+		return decisions.get();
+	}
+}
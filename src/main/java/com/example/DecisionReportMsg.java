@@ -0,0 +1,24 @@
+package com.example;
+
+/**
+ * Sent by a process hosted in another JVM to the coordinator in place of the
+ * Experiment calls: viaQuorum for reportDelay, otherwise countDecision
+ */
+public class DecisionReportMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int id;
+	public final boolean viaQuorum;
+	public final int decideMessages; // DecideMsg sent since the previous report
+
+	public DecisionReportMsg(int id, boolean viaQuorum, int decideMessages) {
+		this(0, id, viaQuorum, decideMessages);
+	}
+
+	public DecisionReportMsg(int epoch, int id, boolean viaQuorum, int decideMessages) {
+		super(epoch);
+		this.id = id;
+		this.viaQuorum = viaQuorum;
+		this.decideMessages = decideMessages;
+	}
+}
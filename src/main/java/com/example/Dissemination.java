@@ -0,0 +1,24 @@
+package com.example;
+
+/**
+ * How a decision travels from the process that decided to the others.
+ * Every process forwards a given decision at most once, and a process that has
+ * decided answers later ReadMsg/ImposeMsg/PullMsg of that slot with the decision (pull repair).
+ * A repair keeps the id of the original decider, so under TREE the repaired process
+ * feeds its own subtree as if its parent had done it.
+ */
+public enum Dissemination {
+	ALL_TO_ALL, // every process rebroadcasts to everybody, O(N^2) messages
+	TREE, // fanout-ary tree rooted at the decider, N-1 messages
+	GOSSIP, // every process forwards to fanout random peers when it first learns, about N * fanout messages
+	LEADER_ONLY; // only the decider broadcasts, N-1 messages
+
+	// A crashed forwarder cuts the processes behind it off, so a process that stopped proposing pulls
+	public boolean pulls() {
+		return this == TREE || this == GOSSIP;
+	}
+
+	public static Dissemination parse(String name) {
+		return valueOf(name.trim().toUpperCase().replace('-', '_'));
+	}
+}
@@ -0,0 +1,19 @@
+package com.example;
+
+import java.io.Serializable;
+
+/**
+ * A message that belongs to one experiment run. The harness numbers the runs and
+ * ProcessCore stamps everything it sends with the current one, so traffic left
+ * over from an earlier run is dropped with a single comparison instead of being
+ * waited out before the next run starts.
+ */
+public abstract class EpochMsg implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	public final int epoch;
+
+	EpochMsg(int epoch) {
+		this.epoch = epoch;
+	}
+}
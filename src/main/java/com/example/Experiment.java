@@ -0,0 +1,161 @@
+package com.example;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measurements of one sweep combination: the consensus delay of each run, latency
+ * histograms over all runs and the decision barrier of the run in progress. Every
+ * combination has its own instance, so combinations can run concurrently. The
+ * reporting methods are called from the actors and never block.
+ */
+public class Experiment {
+	public final SweepConfig.Combination combination;
+	private final long[] consensusDelays; // nanoseconds, -1 if the run timed out
+	private volatile int experimentsDone = 0;
+	private volatile int epoch = 0; // of the run in progress, see EpochMsg
+	private volatile long startNanos;
+	private final AtomicBoolean hasCalculatedDelay = new AtomicBoolean(false);
+	private final AtomicLongArray decidedAt; // per process, 0 until it decides in the current run
+	private volatile DecisionBarrier decisionBarrier = new DecisionBarrier(0);
+	private final AtomicLongArray electionTimeouts; // latest estimate per process, 0 until it has one
+	private final long[] effectiveTimeouts; // per run, ns the harness waits before the first election
+	private final int[] elections; // per run
+	private final ProtocolStats[] protocolStats; // per run, summed over the processes
+
+	// Over all runs of the combination
+	public final LatencyHistogram firstDecision = new LatencyHistogram();
+	public final LatencyHistogram processDecision = new LatencyHistogram();
+	private final LongAdder decideMessages = new LongAdder();
+
+	public Experiment(SweepConfig.Combination combination, int runs) {
+		this.combination = combination;
+		this.consensusDelays = new long[runs];
+		this.decidedAt = new AtomicLongArray(combination.n + 1);
+		this.electionTimeouts = new AtomicLongArray(combination.n + 1);
+		this.effectiveTimeouts = new long[runs];
+		this.elections = new int[runs];
+		this.protocolStats = new ProtocolStats[runs];
+	}
+
+	// Number of the next run, to restart the processes with before startRun
+	public int nextEpoch() {
+		return ++epoch;
+	}
+
+	public int epoch() {
+		return epoch;
+	}
+
+	public void startRun() {
+		for (int i = 0; i < decidedAt.length(); i++) {
+			decidedAt.set(i, 0);
+		}
+		hasCalculatedDelay.set(false);
+		decisionBarrier = new DecisionBarrier(combination.n / 2);
+		startNanos = System.nanoTime();
+	}
+
+	public void finishRun() {
+		experimentsDone++;
+	}
+
+	public DecisionBarrier decisionBarrier() {
+		return decisionBarrier;
+	}
+
+	// A process accepted a decision; its first one in this run goes into processDecision
+	public void countDecision(int ID) {
+		long now = System.nanoTime();
+		if (decidedAt.compareAndSet(ID, 0, now)) {
+			processDecision.record(now - startNanos);
+		}
+		decisionBarrier.arrive();
+	}
+
+	// Decision delay in ns of every process in the current run, -1 for those that have not decided
+	public long[] processDelays() {
+		long[] delays = new long[combination.n];
+		for (int i = 0; i < delays.length; i++) {
+			long at = decidedAt.get(i + 1);
+			delays[i] = at == 0 ? -1 : at - startNanos;
+		}
+		return delays;
+	}
+
+	// First process to decide through its own ack quorum, returns the delay in ns or -1 if not the first
+	public long reportDelay(int ID) {
+		long delay = System.nanoTime() - startNanos;
+		if (!hasCalculatedDelay.compareAndSet(false, true)) { // no need to calculate delay again
+			return -1;
+		}
+		firstDecision.record(delay);
+		consensusDelays[experimentsDone] = delay;
+		return delay;
+	}
+
+	// DecideMsg sent by any process, including pull repairs
+	public void countDecideMessages(int messages) {
+		decideMessages.add(messages);
+	}
+
+	// Decide traffic divided by the runs that decided, each run deciding one value
+	public double decideMessagesPerDecision() {
+		int decided = 0;
+		for (long delay : consensusDelays) {
+			if (delay >= 0) {
+				decided++;
+			}
+		}
+		return decided == 0 ? 0 : decideMessages.sum() / (double) decided;
+	}
+
+	public void reportElectionTimeout(int ID, long nanos) {
+		electionTimeouts.set(ID, nanos);
+	}
+
+	// Largest estimate among the processes, so that nobody's rounds are cut short; -1 if none has one yet
+	public long electionTimeoutNanos() {
+		long max = -1;
+		for (int i = 0; i < electionTimeouts.length(); i++) {
+			max = Math.max(max, electionTimeouts.get(i) > 0 ? electionTimeouts.get(i) : -1);
+		}
+		return max;
+	}
+
+	public void setEffectiveTimeout(long nanos) {
+		effectiveTimeouts[experimentsDone] = nanos;
+	}
+
+	// Called by the harness for every leader it elects in the current run
+	public void countElection() {
+		elections[experimentsDone]++;
+	}
+
+	public long[] effectiveTimeouts() {
+		return effectiveTimeouts.clone();
+	}
+
+	public int[] elections() {
+		return elections.clone();
+	}
+
+	public void markTimedOut() {
+		hasCalculatedDelay.set(true); // ignore a late first decision of this run
+		consensusDelays[experimentsDone] = -1;
+	}
+
+	public long[] consensusDelays() {
+		return consensusDelays.clone();
+	}
+
+	// Called by the harness once the processes' counters of the current run are added up
+	public void recordProtocolStats(ProtocolStats stats) {
+		protocolStats[experimentsDone] = stats;
+	}
+
+	public ProtocolStats[] protocolStats() {
+		return protocolStats.clone();
+	}
+}
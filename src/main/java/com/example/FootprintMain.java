@@ -0,0 +1,69 @@
+package com.example;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+
+import java.util.ArrayList;
+
+/**
+ * Heap taken per process at large N, all processes in this JVM. For each size the
+ * processes are created, given the shared Members view and restarted, then the
+ * heap is measured after a GC; the difference with the empty JVM is divided by N.
+ * The quorum state a proposer adds on top is printed next to it: an aborted
+ * ballot, a full quorum, and the most a process keeps between ballots.
+ *
+ * Usage: FootprintMain [sizes], e.g. FootprintMain 1000,10000,100000 (run with a large enough -Xmx)
+ */
+public class FootprintMain {
+	private static final String ONE_LINE = "--------------------------------------------------";
+
+	public static void main(String[] args) throws Exception {
+		String sizes = args.length > 0 ? args[0] : "1000,10000,100000";
+		System.out.println(ONE_LINE);
+		System.out.printf("%8s %14s %16s %14s%n", "N", "bytes/process", "aborted ballot", "full quorum");
+		for (String size : sizes.split(",")) {
+			int n = Integer.parseInt(size.trim());
+			long before = usedHeap();
+			ActorSystem system = ActorSystem.create("footprint" + n);
+			ArrayList<ActorRef> references = new ArrayList<>(n);
+			for (int i = 0; i < n; i++) {
+				references.add(system.actorOf(Process.createActor(i + 1, n, n / 2, 500, 0), "" + i));
+			}
+			Members m = new Members(references);
+			for (ActorRef actor : references) {
+				actor.tell(m, ActorRef.noSender());
+			}
+			Main.restartProcesses(references, 1); // every actor has started and holds the view
+			long bytes = usedHeap() - before;
+			System.out.printf("%8d %14d %16d %14d%n", n, bytes / n, trackerBytes(n, 4), trackerBytes(n, n / 2));
+			system.terminate();
+			system.getWhenTerminated().toCompletableFuture().get();
+		}
+		System.out.println(ONE_LINE);
+		System.out.println("bytes/process includes the actor, its mailbox and its share of the Members view");
+		System.out.println("Quorum state is per ballot in flight; at most " + ProcessCore.MEMORY_BUDGET
+				+ " bytes of it are kept between ballots");
+	}
+
+	// Membership bytes of a read and an ack tracker once answers processes have answered
+	private static long trackerBytes(int n, int answers) {
+		long bytes = 0;
+		for (int t = 0; t < 2; t++) {
+			QuorumTracker tracker = new QuorumTracker(n);
+			for (int i = 0; i < answers; i++) {
+				tracker.add(i, 0, null);
+			}
+			bytes += tracker.bytes();
+		}
+		return bytes;
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
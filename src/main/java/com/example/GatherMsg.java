@@ -1,13 +1,32 @@
 package com.example;
 
-public class GatherMsg {
+public class GatherMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int slot;
 	public final int ballot;
 	public final int imposeballot;
-	public final String estimate;
+	public final Value estimate;
+	public final int free; // log mode: first slot the read also covers (nothing used there yet), -1 if none
+
+	public GatherMsg(int ballot, int imposeballot, Value estimate) {
+		this(0, ballot, imposeballot, estimate);
+	}
+
+	public GatherMsg(int slot, int ballot, int imposeballot, Value estimate) {
+		this(0, slot, ballot, imposeballot, estimate);
+	}
+
+	public GatherMsg(int epoch, int slot, int ballot, int imposeballot, Value estimate) {
+		this(epoch, slot, ballot, imposeballot, estimate, -1);
+	}
 
-	public GatherMsg(int ballot, int imposeballot, String estimate) {
+	public GatherMsg(int epoch, int slot, int ballot, int imposeballot, Value estimate, int free) {
+		super(epoch);
+		this.slot = slot;
 		this.ballot = ballot;
 		this.imposeballot = imposeballot;
 		this.estimate = estimate;
+		this.free = free;
 	}
-}
\ No newline at end of file
+}
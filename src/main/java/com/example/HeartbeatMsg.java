@@ -0,0 +1,16 @@
+package com.example;
+
+/**
+ * Sent periodically by the process that considers itself leader
+ */
+public class HeartbeatMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public HeartbeatMsg() {
+		this(0);
+	}
+
+	public HeartbeatMsg(int epoch) {
+		super(epoch);
+	}
+}
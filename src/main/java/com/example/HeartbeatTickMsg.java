@@ -0,0 +1,12 @@
+package com.example;
+
+/**
+ * Self-scheduled every heartbeat period while the leader elector runs
+ */
+public class HeartbeatTickMsg {
+	public final int generation;
+
+	public HeartbeatTickMsg(int generation) {
+		this.generation = generation;
+	}
+}
@@ -1,9 +1,19 @@
 package com.example;
 
-public class HoldMsg {
+public class HoldMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
 //	private final int newLeaderId;
 //	
 //	public HoldMsg(int newLeaderId) {
 //		this.newLeaderId = newLeaderId;
 //	}
-}
\ No newline at end of file
+
+	public HoldMsg() {
+		this(0);
+	}
+
+	public HoldMsg(int epoch) {
+		super(epoch);
+	}
+}
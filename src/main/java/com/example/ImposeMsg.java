@@ -1,11 +1,24 @@
 package com.example;
 
-public class ImposeMsg {
+public class ImposeMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int slot;
 	public final int ballot;
-	public final String proposal;
+	public final Value proposal;
+
+	public ImposeMsg(int ballot, Value proposal) {
+		this(0, ballot, proposal);
+	}
+
+	public ImposeMsg(int slot, int ballot, Value proposal) {
+		this(0, slot, ballot, proposal);
+	}
 
-	public ImposeMsg(int ballot, String proposal) {
+	public ImposeMsg(int epoch, int slot, int ballot, Value proposal) {
+		super(epoch);
+		this.slot = slot;
 		this.ballot = ballot;
 		this.proposal = proposal;
 	}
-}
\ No newline at end of file
+}
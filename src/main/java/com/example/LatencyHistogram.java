@@ -0,0 +1,88 @@
+package com.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of nanosecond latencies. Values below 128 ns are
+ * exact, above that every power of two is split into 64 buckets, so a reported
+ * percentile is at most ~1.6% above the recorded value. Any thread can record
+ * concurrently with no allocation.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKETS = 64;
+	private static final int LINEAR = 2 * SUB_BUCKETS; // values below this get their own bucket
+	private static final int BUCKETS = 57 * SUB_BUCKETS + SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts.incrementAndGet(index(nanos));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		long m;
+		while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) {
+			// retry until we either set the max or someone set a larger one
+		}
+	}
+
+	static int index(long v) {
+		if (v < LINEAR) {
+			return (int) v;
+		}
+		int shift = 57 - Long.numberOfLeadingZeros(v); // top 7 bits of v land in [64, 127]
+		return shift * SUB_BUCKETS + (int) (v >>> shift);
+	}
+
+	// Largest value that falls into bucket i
+	static long highestValue(int i) {
+		if (i < LINEAR) {
+			return i;
+		}
+		int shift = i / SUB_BUCKETS - 1;
+		long top = i % SUB_BUCKETS + SUB_BUCKETS;
+		return ((top + 1) << shift) - 1;
+	}
+
+	// Value at quantile q (0..1) in nanoseconds, 0 if nothing was recorded
+	public long percentile(double q) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(q * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	public long count() {
+		return count.get();
+	}
+
+	public long max() {
+		return max.get();
+	}
+
+	public double mean() {
+		long c = count.get();
+		return c == 0 ? 0 : (double) sum.get() / c;
+	}
+
+	// p50/p90/p99/p999/max in milliseconds
+	public String summary() {
+		return String.format("p50=%.3f p90=%.3f p99=%.3f p999=%.3f max=%.3f ms (n=%d)", percentile(0.5) / 1e6,
+				percentile(0.9) / 1e6, percentile(0.99) / 1e6, percentile(0.999) / 1e6, max() / 1e6, count());
+	}
+}
@@ -1,4 +1,16 @@
 package com.example;
 
-public class LaunchMsg {
-}
\ No newline at end of file
+public class LaunchMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final long seed; // of the process's random stream for this run
+
+	public LaunchMsg(long seed) {
+		this(0, seed);
+	}
+
+	public LaunchMsg(int epoch, long seed) {
+		super(epoch);
+		this.seed = seed;
+	}
+}
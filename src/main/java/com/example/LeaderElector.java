@@ -0,0 +1,103 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Timeout failure detector with the lowest-live-id leader rule (Omega). A process
+ * is suspected once nothing was heard from it for suspectAfterMs; the leader is
+ * the lowest index that is not suspected, ourselves included. Only the process
+ * that thinks it leads sends heartbeats, so detection costs N-1 messages per period.
+ * For the same reason only a few processes are ever heard from: they are kept in
+ * small arrays, and everyone else was last heard at start.
+ * A process that never led is not heard from either, so it cannot be suspected
+ * like a leader. Once the leader is suspected, the lower processes not known to be
+ * dead take over first, one suspectAfterMs each in index order. A process waits out
+ * all of their turns before it claims leadership, and the first one that takes over
+ * is heard by all the others. Without this stagger every process would claim
+ * leadership, and send HoldMsg to all, at the same moment.
+ */
+final class LeaderElector {
+	private final int self;
+	private final long suspectAfterMs;
+	private long startedMs; // everybody counts as heard at start
+	private int[] heardIndex = new int[4]; // processes heard since start, in no order
+	private long[] heardMs = new long[4]; // ms on the host clock, by position in heardIndex
+	private int heard = 0;
+	private int generation = 0; // bumped on start so ticks of an earlier run are ignored
+
+	LeaderElector(int self, long suspectAfterMs) {
+		this.self = self;
+		this.suspectAfterMs = suspectAfterMs;
+	}
+
+	// Everybody counts as alive at start and has suspectAfterMs to show up
+	void start(long nowMs) {
+		startedMs = nowMs;
+		heard = 0;
+		generation++;
+	}
+
+	void heard(int index, long nowMs) {
+		for (int i = 0; i < heard; i++) {
+			if (heardIndex[i] == index) {
+				heardMs[i] = nowMs;
+				return;
+			}
+		}
+		if (heard == heardIndex.length) {
+			heardIndex = Arrays.copyOf(heardIndex, heard * 2);
+			heardMs = Arrays.copyOf(heardMs, heard * 2);
+		}
+		heardIndex[heard] = index;
+		heardMs[heard++] = nowMs;
+	}
+
+	int leader(long nowMs) {
+		int leader = self;
+		int dead = 0; // lower processes that led and went silent
+		long silentSince = startedMs; // last time a lower process was heard
+		for (int i = 0; i < heard; i++) {
+			if (heardIndex[i] >= self) {
+				continue;
+			}
+			if (nowMs - heardMs[i] <= suspectAfterMs) {
+				leader = Math.min(leader, heardIndex[i]);
+			} else {
+				dead++;
+			}
+			silentSince = Math.max(silentSince, heardMs[i]);
+		}
+		if (leader != self) {
+			return leader;
+		}
+		// The lower processes that may still take over, in index order, get a turn each before us. The
+		// first turn starts at start, or once the last leader is suspected
+		long turns = self - dead + (dead > 0 ? 1 : 0);
+		if (self > dead && nowMs - silentSince <= suspectAfterMs * turns) {
+			for (int i = 0; i < self; i++) {
+				if (!wasHeard(i)) {
+					return i;
+				}
+			}
+		}
+		return self;
+	}
+
+	private boolean wasHeard(int index) {
+		for (int i = 0; i < heard; i++) {
+			if (heardIndex[i] == index) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Ticks already scheduled are ignored from now on
+	void stop() {
+		generation++;
+	}
+
+	int generation() {
+		return generation;
+	}
+}
@@ -1,9 +1,16 @@
 package com.example;
 
-public class LeaderSelectionMsg {
+public class LeaderSelectionMsg extends EpochMsg {
+    private static final long serialVersionUID = 1L;
+
     public final int leaderId;
 
     public LeaderSelectionMsg(int leaderId) {
+        this(0, leaderId);
+    }
+
+    public LeaderSelectionMsg(int epoch, int leaderId) {
+        super(epoch);
         this.leaderId = leaderId;
     }
-}
\ No newline at end of file
+}
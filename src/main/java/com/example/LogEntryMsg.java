@@ -0,0 +1,15 @@
+package com.example;
+
+import java.util.List;
+
+public class LogEntryMsg {
+	public final int slot;
+	public final Value value;
+	public final List<String> commands; // value split into its batched commands
+
+	public LogEntryMsg(int slot, Value value, List<String> commands) {
+		this.slot = slot;
+		this.value = value;
+		this.commands = commands;
+	}
+}
@@ -0,0 +1,109 @@
+package com.example;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.UntypedAbstractActor;
+import akka.pattern.Patterns;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replicated log throughput run: one leader keeps a window of slots in flight
+ * and a subscriber consumes the decided log as an ordered stream. With fastPath
+ * (the default) the leader imposes slots directly once it holds a read quorum;
+ * false keeps both phases for every slot, for comparison.
+ *
+ * Usage: LogMain [N] [window] [commands] [maxBatch] [maxBatchDelayMs] [fastPath]
+ */
+public class LogMain {
+	private static final String ONE_LINE = "--------------------------------------------------";
+
+	public static void main(String[] args) throws Exception {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		int window = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		int commands = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+		int maxBatch = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+		long maxBatchDelay = args.length > 4 ? Long.parseLong(args[4]) : 5;
+		boolean fastPath = args.length > 5 ? Boolean.parseBoolean(args[5]) : true;
+
+		final ActorSystem system = ActorSystem.create("system");
+		ArrayList<ActorRef> references = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			references.add(system.actorOf(Process.createActor(i + 1, n, 0, 0, 0, window, maxBatch, maxBatchDelay, fastPath), "" + i));
+		}
+		Members m = new Members(references);
+		for (ActorRef actor : references) {
+			actor.tell(m, ActorRef.noSender());
+		}
+
+		CountDownLatch done = new CountDownLatch(1);
+		ActorRef collector = system.actorOf(LogCollector.props(commands, done), "collector");
+		ActorRef leader = references.get(0);
+		leader.tell(new SubscribeMsg(collector), ActorRef.noSender());
+		leader.tell(new LeaderSelectionMsg(1), ActorRef.noSender());
+
+		long start = System.nanoTime();
+		for (int i = 0; i < commands; i++) {
+			leader.tell(new SubmitMsg("cmd-" + i), ActorRef.noSender());
+		}
+		boolean completed = done.await(5, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println(ONE_LINE);
+		System.out.printf("N=%d, window=%d, commands=%d, maxBatch=%d, maxBatchDelay=%d ms, fastPath=%b%n", n, window,
+				commands, maxBatch, maxBatchDelay, fastPath);
+		if (completed) {
+			double seconds = elapsed / 1e9;
+			System.out.printf("Committed %d commands in %.3f s (%.0f commands/s)%n", commands, seconds, commands / seconds);
+		} else {
+			System.out.println("Timed out before the whole log was decided");
+		}
+		BatchStats stats = (BatchStats) Patterns.ask(leader, new BatchStatsMsg(), Duration.ofSeconds(5))
+				.toCompletableFuture().get();
+		System.out.println("Batching: " + stats);
+		ProtocolStats protocol = (ProtocolStats) Patterns.ask(leader, new ProtocolStatsMsg(), Duration.ofSeconds(5))
+				.toCompletableFuture().get();
+		System.out.printf("Leader: %d read phases for %d decisions, read %.3f ms, impose %.3f ms%n", protocol.reads,
+				protocol.imposes, protocol.readMs(), protocol.imposeMs());
+		System.out.println(ONE_LINE);
+		system.terminate();
+	}
+
+	/**
+	 * Consumes LogEntryMsg in order and signals once the expected number of commands arrived
+	 */
+	static class LogCollector extends UntypedAbstractActor {
+		private final int expected;
+		private final CountDownLatch done;
+		private int next = 0;
+		private int commands = 0;
+
+		LogCollector(int expected, CountDownLatch done) {
+			this.expected = expected;
+			this.done = done;
+		}
+
+		static Props props(int expected, CountDownLatch done) {
+			return Props.create(LogCollector.class, () -> new LogCollector(expected, done));
+		}
+
+		@Override
+		public void onReceive(Object message) {
+			if (message instanceof LogEntryMsg) {
+				LogEntryMsg entry = (LogEntryMsg) message;
+				if (entry.slot != next) {
+					throw new IllegalStateException("Log entry " + entry.slot + " delivered out of order, expected " + next);
+				}
+				next++;
+				commands += entry.commands.size();
+				if (commands == expected) {
+					done.countDown();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.example;
+
+/**
+ * Replicated log on the Simulator, two-phase against the leader fast path: the
+ * leader gets a command every interval and each line gives the mean time from
+ * submission to the leader delivering it, with the read phases and messages
+ * spent per decision.
+ *
+ * Usage: LogSimMain [sizes] [window] [commands] [intervalUs] [seed], e.g. LogSimMain 3,5,11 8 1000 500 1
+ */
+public class LogSimMain {
+	private static final String ONE_LINE = "--------------------------------------------------";
+
+	public static void main(String[] args) {
+		String sizes = args.length > 0 ? args[0] : "3,5,11";
+		int window = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int commands = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		long interval = args.length > 3 ? Long.parseLong(args[3]) : 500;
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+
+		System.out.println(ONE_LINE);
+		System.out.printf("window=%d, commands=%d, one every %d us, seed=%d%n", window, commands, interval, seed);
+		System.out.printf("%6s %10s %12s %12s %14s%n", "N", "fastPath", "commit ms", "reads/dec", "messages/dec");
+		for (String size : sizes.split(",")) {
+			int n = Integer.parseInt(size.trim());
+			for (boolean fastPath : new boolean[] { false, true }) {
+				Simulator sim = new Simulator(n, window, fastPath, seed);
+				double latency = sim.runLog(commands, interval, 60000);
+				ProtocolStats stats = sim.protocolStats();
+				long messages = 0;
+				for (long sent : stats.sent) {
+					messages += sent;
+				}
+				System.out.printf("%6d %10b %12.3f %12.2f %14.1f%n", n, fastPath, latency,
+						stats.reads / (double) stats.imposes, messages / (double) stats.imposes);
+			}
+		}
+		System.out.println(ONE_LINE);
+	}
+}
@@ -3,213 +3,120 @@ package com.example;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.Cancellable;
+import akka.pattern.Patterns;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.Scanner; 
 import java.util.ArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
 
-//Import XChart classes
-import org.knowm.xchart.*;
-import org.knowm.xchart.BitmapEncoder;
-import org.knowm.xchart.BitmapEncoder.BitmapFormat;
-import org.knowm.xchart.style.markers.SeriesMarkers;
 import java.io.IOException;
+import java.nio.file.Paths;
 
 public class Main {
-	private static final int[] LEADER_ELECTION_TIMEOUT = {500, 1000, 1500, 2000}; // 500, 1000, 1500, 2000
-	private static final int DELAY_BETWEEN_EXPERIMENTS = 1500;
-	private static final int NUMBER_OF_EXPERIMENTS = 5;
+	private static final int RUN_TIMEOUT = 30000; // Give up on a run if a majority has not decided by then
 	private static final String ONE_LINE = "--------------------------------------------------";
-	
-	public static final int[] N = {3, 10, 100}; // 3,10,100
-	private static final int[] f = {1, 4, 49}; // Number of processes that may crash // 1,4,49
-	private static final double[] ALPHA = {0, 0.1, 1};
-	public static long startTime; 
-	private static ArrayList<ActorRef> references; // List of process references
-	
-	public static AtomicInteger decideCount = new AtomicInteger(0);
-	private static boolean hasCalculatedDelay = false;
-	
-	private static long[] consensusDelays;
-	private static int experimentsDone = 0;
 
-    private static List<ResultData> resultDataList = new ArrayList<>();
-	
-	public static void main(String[] args) throws InterruptedException {
-		
+	public static void main(String[] args) throws Exception {
+		SweepConfig config = SweepConfig.parse(args);
+
 		//Scanner scanner = new Scanner(System.in);
-		
-		for (int tle : LEADER_ELECTION_TIMEOUT) { // Iterate through timeout values
-            for (int nIdx = 0; nIdx < N.length; nIdx++) { // N and f are related by index
-                int currentN = N[nIdx];
-                int currentF = f[nIdx];
-                for (double alpha : ALPHA) { // Iterate through alpha values
-                    System.out.println(ONE_LINE);
-                    System.out.printf("Running combination: N=%d, f=%d, TLE=%d, ALPHA=%.1f%n",
-                            currentN, currentF, tle, alpha);
-                    
-                    consensusDelays = new long[NUMBER_OF_EXPERIMENTS]; // Reset for each combination
-                    experimentsDone = 0;
-
-                    final ActorSystem system = ActorSystem.create("system");
-                    references = new ArrayList<>();
-
-                    // Create processes with current parameters
-                    for (int i = 0; i < currentN; i++) {
-                        // Modified createActor() call (change in Process class required)
-                        final ActorRef a = system.actorOf(
-                            Process.createActor(i+1, currentN, currentF, tle, alpha), 
-                            ""+i
-                        );
-                        references.add(a);
-                    }
-
-                    
-                    Members m = new Members(references);
-                    for (ActorRef actor : references) {
-                        actor.tell(m, ActorRef.noSender());
-                    }
-
-                    for (int exp = 0; exp < NUMBER_OF_EXPERIMENTS; exp++) {
-                        // Modified runOnce() call
-                        runOnce(system, references, currentN, currentF, tle);
-                        experimentsDone++;
-                    }
-
-                    double averageConsensusDelay = calculateAverageConsensusDelay(); // Now shows results per combination
-                    resultDataList.add(new ResultData(currentN, currentF, tle, alpha, averageConsensusDelay));
-                    system.terminate();
-                    
-                    /*
-                    System.out.println("\nPress 'q' + Enter to continue...");
-                    while (true) {
-                        String input = scanner.nextLine().trim();
-                        if (input.equalsIgnoreCase("q")) break;
-                        System.out.println("Invalid input. Press 'q' + Enter:");
-                    }
-                    */
-                }
-            }
-        }
-		generateCharts();
-    }
-	
-	private static class ResultData {
-        public final int n;
-        public final int f;
-        public final int tle;
-        public final double alpha;
-        public final double averageDelay;
-
-        public ResultData(int n, int f, int tle, double alpha, double averageDelay) {
-            this.n = n;
-            this.f = f;
-            this.tle = tle;
-            this.alpha = alpha;
-            this.averageDelay = averageDelay;
-        }
-    }
-	
-    private static void generateCharts() {
-        Map<Integer, List<Double>> nData = new HashMap<>();
-        Map<Double, List<Double>> alphaData = new HashMap<>();
-        Map<Integer, List<Double>> tleData = new HashMap<>();
-
-        for (ResultData data : resultDataList) {
-            nData.computeIfAbsent(data.n, k -> new ArrayList<>()).add(data.averageDelay);
-            alphaData.computeIfAbsent(data.alpha, k -> new ArrayList<>()).add(data.averageDelay);
-            tleData.computeIfAbsent(data.tle, k -> new ArrayList<>()).add(data.averageDelay);
-        }
-
-        Map<Integer, Double> nAverages = computeAverages(nData);
-        Map<Double, Double> alphaAverages = computeAverages(alphaData);
-        Map<Integer, Double> tleAverages = computeAverages(tleData);
-
-        createAndSaveChart(nAverages, "N", "Average Consensus Delay vs N", "N", "Average Delay (ms)");
-        createAndSaveChart(alphaAverages, "ALPHA", "Average Consensus Delay vs ALPHA", "ALPHA", "Average Delay (ms)");
-        createAndSaveChart(tleAverages, "TLE", "Average Consensus Delay vs LEADER_ELECTION_TIMEOUT", "LEADER_ELECTION_TIMEOUT (ms)", "Average Delay (ms)");
-    }
 
-    private static <T> Map<T, Double> computeAverages(Map<T, List<Double>> data) {
-        Map<T, Double> averages = new HashMap<>();
-        for (Map.Entry<T, List<Double>> entry : data.entrySet()) {
-            T key = entry.getKey();
-            List<Double> values = entry.getValue();
-            double sum = values.stream().mapToDouble(Double::doubleValue).sum();
-            averages.put(key, sum / values.size());
-        }
-        return averages;
-    }
+		// Every run is stored as soon as it is over; a restarted sweep only runs what the store is missing
+		ResultsStore store = new ResultsStore(Paths.get(config.results != null ? config.results : "./results.jsonl"));
+		List<SweepConfig.Combination> combinations = config.combinations();
+		List<SweepConfig.Combination> pending = store.pending(combinations, config.seed, config.runs);
+		if (pending.size() < combinations.size()) {
+			System.out.println((combinations.size() - pending.size()) + " of " + combinations.size()
+					+ " combinations already in " + store.path() + ", skipping them");
+		}
 
-    private static <T> void createAndSaveChart(Map<T, Double> data, String parameter, String title, String xAxisTitle, String yAxisTitle) {
-        List<T> sortedKeys = new ArrayList<>(data.keySet());
-        sortedKeys.sort((a, b) -> {
-            if (a instanceof Number && b instanceof Number) {
-                return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
-            }
-            return 0;
-        });
-
-        List<Number> xValues = new ArrayList<>();
-        List<Double> yValues = new ArrayList<>();
-        for (T key : sortedKeys) {
-            if (key instanceof Number) {
-                xValues.add((Number) key);
-            }
-            yValues.add(data.get(key));
-        }
-
-        XYChart chart = new XYChartBuilder().width(800).height(600).title(title).xAxisTitle(xAxisTitle).yAxisTitle(yAxisTitle).build();
-        chart.getStyler().setDefaultSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line);
-        chart.getStyler().setMarkerSize(8);
-
-        double[] xData = xValues.stream().mapToDouble(Number::doubleValue).toArray();
-        double[] yData = yValues.stream().mapToDouble(Double::doubleValue).toArray();
-
-        chart.addSeries(parameter, xData, yData);
-
-        try {
-            BitmapEncoder.saveBitmapWithDPI(chart, "./" + parameter + "_chart", BitmapFormat.PNG, 300);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+		new SweepRunner(config.parallelism).run(pending, c -> runCombination(c, config.runs, config.seed, store));
+		ReportMain.generate(store.path(), "");
     }
+
+	// Runs every experiment of one combination on its own actor system
+	private static Experiment runCombination(SweepConfig.Combination c, int runs, long seed, ResultsStore store)
+			throws InterruptedException, IOException {
+		Experiment experiment = new Experiment(c, runs);
+		SplittableRandom runSeeds = new SplittableRandom(c.seed(seed));
+
+		final ActorSystem system = ActorSystem.create("system" + c.index);
+		ArrayList<ActorRef> references = new ArrayList<>();
+
+		// Create processes with current parameters
+		for (int i = 0; i < c.n; i++) {
+			final ActorRef a = system.actorOf(Process.createActor(i + 1, c.n, c.f, c.tle, c.alpha, experiment), "" + i);
+			references.add(a);
+		}
+
+		Members m = new Members(references);
+		for (ActorRef actor : references) {
+			actor.tell(m, ActorRef.noSender());
+		}
+
+		for (int exp = 0; exp < runs; exp++) {
+			long runSeed = runSeeds.nextLong();
+			runOnce(system, references, experiment, runSeed);
+			store.append(c, seed, runs, exp, runSeed, experiment);
+			experiment.finishRun();
+		}
+
+		calculateAverageConsensusDelay(experiment); // Now shows results per combination
+		system.terminate();
+
+		/*
+		System.out.println("\nPress 'q' + Enter to continue...");
+		while (true) {
+			String input = scanner.nextLine().trim();
+			if (input.equalsIgnoreCase("q")) break;
+			System.out.println("Invalid input. Press 'q' + Enter:");
+		}
+		*/
+		return experiment;
+	}
+	
 	
 	
 	// Send special crash messages to f processes at random
-	private static void sendCrashMessages(ArrayList<Integer> randomIndexes, ArrayList<ActorRef> references, int currentF) {
+	private static void sendCrashMessages(ArrayList<Integer> randomIndexes, ArrayList<ActorRef> references, int currentF,
+			int epoch) {
 		// Send crash messages
 		for (int k = 0; k < currentF; k++) {
 			int randomProcessIndex = randomIndexes.get(k);
-			references.get(randomProcessIndex).tell(new CrashMsg(true), ActorRef.noSender());
+			references.get(randomProcessIndex).tell(new CrashMsg(epoch, true), ActorRef.noSender());
 		}
 	}
 
 	// After every timeout, select a new leader
-	private static int findNewLeaderIndex(ArrayList<Integer> faultyIndexes, ArrayList<ActorRef> references, int currentN) {
+	private static int findNewLeaderIndex(ArrayList<Integer> faultyIndexes, SplittableRandom random, int currentN) {
 		// Find a new leader
-		int leaderIndex = new Random().nextInt(currentN);
+		int leaderIndex = random.nextInt(currentN);
 		// Find a non fault-prone leader
 		while (faultyIndexes.contains(leaderIndex)) {
-			leaderIndex = new Random().nextInt(currentN);
+			leaderIndex = random.nextInt(currentN);
 		}
 		return leaderIndex;
 	}
 
 	
 	
-	private static ArrayList<Integer> getFaultyIndexes(int currentN, int currentF) {
-		ArrayList<Integer> fullListIndexes = new ArrayList<Integer>();
+	// First f steps of a Fisher-Yates shuffle
+	private static ArrayList<Integer> getFaultyIndexes(int currentN, int currentF, SplittableRandom random) {
+		int[] indexes = new int[currentN];
 		for (int j = 0; j < currentN; j++) {
-			fullListIndexes.add(j);
+			indexes[j] = j;
 		}
-		Collections.shuffle(fullListIndexes);
 
 		ArrayList<Integer> faultyIndexes = new ArrayList<Integer>();
 		for (int k = 0; k < currentF; k++) {
-			faultyIndexes.add(fullListIndexes.get(k));
+			int j = k + random.nextInt(currentN - k);
+			int index = indexes[j];
+			indexes[j] = indexes[k];
+			indexes[k] = index;
+			faultyIndexes.add(index);
 		}
 		return faultyIndexes;
 
@@ -217,32 +124,97 @@ public class Main {
 
 	
 	
-	private static void resetSystem() {
-		hasCalculatedDelay = false; 
-		decideCount.set(0);
-	}
-
-	private static double calculateAverageConsensusDelay() {
-		long totalConsensusDelay = 0;
-		for (int i = 0; i < NUMBER_OF_EXPERIMENTS; i++) {
-			System.out.println("Experiment " + (i + 1) + " consensus delay: " + consensusDelays[i] + " ms");
-			totalConsensusDelay += consensusDelays[i];
+	static double calculateAverageConsensusDelay(Experiment experiment) {
+		long[] consensusDelays = experiment.consensusDelays();
+		double totalConsensusDelay = 0;
+		int completedRuns = 0;
+		StringBuilder out = new StringBuilder();
+		out.append(ONE_LINE).append('\n');
+		out.append("Combination: ").append(experiment.combination).append('\n');
+		for (int i = 0; i < consensusDelays.length; i++) {
+			if (consensusDelays[i] < 0) {
+				out.append("Experiment " + (i + 1) + " timed out after " + RUN_TIMEOUT + " ms").append('\n');
+				continue;
+			}
+			out.append("Experiment " + (i + 1) + " consensus delay: " + consensusDelays[i] / 1e6 + " ms");
+			if (experiment.combination.adaptive) {
+				out.append(" (election timeout " + experiment.effectiveTimeouts()[i] / 1e6 + " ms, "
+						+ experiment.elections()[i] + " elections)");
+			}
+			out.append('\n');
+			totalConsensusDelay += consensusDelays[i] / 1e6;
+			completedRuns++;
 		}
 
-		double averageConsensusDelay = (double) totalConsensusDelay / NUMBER_OF_EXPERIMENTS;
-		System.out.println(ONE_LINE);
-		System.out.println("Average consensus delay: " + averageConsensusDelay + " ms");
-		System.out.println(ONE_LINE);
+		double averageConsensusDelay = completedRuns == 0 ? 0 : totalConsensusDelay / completedRuns;
+		out.append(ONE_LINE).append('\n');
+		out.append("Average consensus delay: " + averageConsensusDelay + " ms").append('\n');
+		out.append("First decision: " + experiment.firstDecision.summary()).append('\n');
+		out.append("Any process decision: " + experiment.processDecision.summary()).append('\n');
+		out.append(String.format("Decide messages per decision: %.1f", experiment.decideMessagesPerDecision())).append('\n');
+		ProtocolStats[] protocolStats = experiment.protocolStats();
+		ProtocolStats decided = new ProtocolStats(); // runs that reached a decision
+		for (int i = 0; i < protocolStats.length; i++) {
+			if (protocolStats[i] != null) {
+				out.append("Experiment " + (i + 1) + " phases: " + protocolStats[i]).append('\n');
+				if (consensusDelays[i] >= 0) {
+					decided.add(protocolStats[i]);
+				}
+			}
+		}
+		if (completedRuns > 0) {
+			out.append(String.format("Per decision: %.1f read phases, %.1f aborts, %.1f retries",
+					decided.ballots / (double) completedRuns, decided.abortedBallots / (double) completedRuns,
+					decided.retries / (double) completedRuns)).append('\n');
+		}
+		out.append(ONE_LINE);
+		System.out.println(out); // one print so parallel combinations do not interleave
 		return averageConsensusDelay;
 	}
 
-	private static void runOnce(ActorSystem system, ArrayList<ActorRef> references, int currentN, int currentF, int currentTLE) throws InterruptedException {
-		startTime = System.currentTimeMillis();
-		ArrayList<Integer> faultyIndexes = getFaultyIndexes(currentN, currentF);
-		sendCrashMessages(faultyIndexes, references, currentF);
+	// Faulty processes, leaders and every process's own stream all follow from runSeed
+	static void runOnce(ActorSystem system, ArrayList<ActorRef> references, Experiment experiment, long runSeed)
+			throws InterruptedException {
+		int currentN = experiment.combination.n;
+		int currentF = experiment.combination.f;
+		int currentTLE = experiment.combination.tle;
+		SplittableRandom random = new SplittableRandom(runSeed);
+		int epoch = experiment.nextEpoch();
+		restartProcesses(references, epoch); // whatever the previous run left in flight is dropped from here on
+		experiment.startRun();
+		ArrayList<Integer> faultyIndexes = getFaultyIndexes(currentN, currentF, random);
+		sendCrashMessages(faultyIndexes, references, currentF, epoch);
 
 		for (ActorRef actor : references) {
-			actor.tell(new LaunchMsg(), ActorRef.noSender());
+			actor.tell(new LaunchMsg(epoch, random.nextLong()), ActorRef.noSender());
+		}
+
+		if (experiment.combination.electsLeader()) {
+			// The processes elect the lowest live id among themselves, no TLE sleep
+			awaitMajority(system, references, experiment, System.nanoTime() + RUN_TIMEOUT * 1_000_000L);
+			return;
+		}
+
+		if (experiment.combination.adaptive) {
+			// Elect once the proposers had time for a few rounds at the measured round trip, doubling the
+			// wait after every election that did not bring a decision. TLE is the guess until there are samples.
+			// The elections are the harness's job as in the TLE mode, so the doubling stays here too; the
+			// whole run, elections and the wait for the majority, has RUN_TIMEOUT.
+			long timeout = experiment.electionTimeoutNanos() > 0 ? experiment.electionTimeoutNanos()
+					: currentTLE * 1_000_000L;
+			experiment.setEffectiveTimeout(timeout);
+			long deadline = System.nanoTime() + RUN_TIMEOUT * 1_000_000L;
+			DecisionBarrier decisionBarrier = experiment.decisionBarrier();
+			while (!decisionBarrier.await(Math.max(1, Math.min(timeout, deadline - System.nanoTime()) / 1_000_000))
+					&& System.nanoTime() < deadline) {
+				int newLeaderIndex = findNewLeaderIndex(faultyIndexes, random, currentN);
+				system.log().info("New leader index: " + newLeaderIndex + " after " + timeout / 1e6 + " ms");
+				experiment.countElection();
+				references.get(newLeaderIndex).tell(new LeaderSelectionMsg(epoch, newLeaderIndex + 1), ActorRef.noSender());
+				timeout = Math.min(timeout * 2, RUN_TIMEOUT * 1_000_000L);
+			}
+			awaitMajority(system, references, experiment, deadline);
+			return;
 		}
 
 		// First Delay before leader election
@@ -256,41 +228,70 @@ public class Main {
 			system.log().info("New leader index: " + newLeaderIndex);
 
 			// Elect new leader
-			newLeader.tell(new LeaderSelectionMsg(newLeaderIndex + 1), ActorRef.noSender());
+			newLeader.tell(new LeaderSelectionMsg(epoch, newLeaderIndex + 1), ActorRef.noSender());
 			// Subsequent Delays
 			Thread.sleep(LEADER_ELECTION_TIMEOUT);
 		} while (!hasCalculatedDelay);*/
 		
-			int newLeaderIndex = findNewLeaderIndex(faultyIndexes, references, currentN);
+			int newLeaderIndex = findNewLeaderIndex(faultyIndexes, random, currentN);
 			ActorRef newLeader = references.get(newLeaderIndex);
 			system.log().info("New leader index: " + newLeaderIndex);
 
 			// Elect new leader
-			newLeader.tell(new LeaderSelectionMsg(newLeaderIndex + 1), ActorRef.noSender());
+			newLeader.tell(new LeaderSelectionMsg(epoch, newLeaderIndex + 1), ActorRef.noSender());
 			// Subsequent Delays
 			Thread.sleep(currentTLE);
 
-		while (decideCount.get() < currentN / 2) {
-			System.out.println(decideCount.get());
-			// Wait for majority to decide
+		awaitMajority(system, references, experiment, System.nanoTime() + RUN_TIMEOUT * 1_000_000L);
+		return;
+	}
+
+	// Wait until deadline (System.nanoTime) for a majority to decide; the next run restarts the processes
+	private static void awaitMajority(ActorSystem system, ArrayList<ActorRef> references, Experiment experiment,
+			long deadline) throws InterruptedException {
+		DecisionBarrier decisionBarrier = experiment.decisionBarrier();
+		if (decisionBarrier.await(Math.max(0, (deadline - System.nanoTime()) / 1_000_000))) {
+			system.log().info("verified majority has decided");
+		} else {
+			system.log().warning("Run timed out with " + decisionBarrier.decisions() + " of "
+					+ experiment.combination.n / 2 + " decisions");
+			experiment.markTimedOut();
 		}
-		system.log().info("verified majority has decided");
+		experiment.recordProtocolStats(collectProtocolStats(references));
 
-		Thread.sleep(DELAY_BETWEEN_EXPERIMENTS); // Sleep for a while to let processes finish
-		restartProcesses(); // Restart processes
-		Thread.sleep(DELAY_BETWEEN_EXPERIMENTS); // Sleep for a while to let restart finish
-		resetSystem();
 		System.out.println("Reached the end of experiment" + ONE_LINE);
-		return;
 	}
 
-	// Restart all processes after consensus delay is calculated
-	public static void restartProcesses() {
+	// Sum of every process's counters for the run in progress
+	static ProtocolStats collectProtocolStats(ArrayList<ActorRef> references) throws InterruptedException {
+		List<CompletableFuture<Object>> replies = new ArrayList<>();
+		for (ActorRef process : references) {
+			replies.add(Patterns.ask(process, new ProtocolStatsMsg(), Duration.ofMillis(RUN_TIMEOUT)).toCompletableFuture());
+		}
+		ProtocolStats total = new ProtocolStats();
+		try {
+			for (CompletableFuture<Object> reply : replies) {
+				total.add((ProtocolStats) reply.get());
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A process did not send its protocol counters", e);
+		}
+		return total;
+	}
+
+	// Restart all processes into epoch and return once every one of them has confirmed it
+	public static void restartProcesses(ArrayList<ActorRef> references, int epoch) throws InterruptedException {
 		// Create restart message
-		RestartMsg restartMsg = new RestartMsg();
+		RestartMsg restartMsg = new RestartMsg(epoch);
 		// Restart processes
+		List<CompletableFuture<Object>> acks = new ArrayList<>();
 		for (ActorRef process : references) {
-			process.tell(restartMsg, ActorRef.noSender());
+			acks.add(Patterns.ask(process, restartMsg, Duration.ofMillis(RUN_TIMEOUT)).toCompletableFuture());
+		}
+		try {
+			CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A process did not confirm the restart into epoch " + epoch, e);
 		}
 		System.out.println("All processes have restarted.");
 	}
@@ -341,22 +342,4 @@ public class Main {
 		System.out.println("System has terminated.");
 		return;
 	} */
-	
-	
-	
-	
-	
-
-	public static synchronized void reportDelay(int ID) {
-		if (hasCalculatedDelay) { // no need to calculate delay again
-			return;
-		}
-		hasCalculatedDelay = true;
-
-		long endTime = System.currentTimeMillis();
-		long delay = endTime - startTime;
-		akka.event.Logging.getLogger(akka.actor.ActorSystem.create(), "Main")
-				.info("Process " + ID + " has reached DECIDE with consensus delay = " + delay + " ms");
-		consensusDelays[experimentsDone] = delay;
-	}
 }
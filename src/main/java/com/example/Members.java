@@ -2,20 +2,56 @@ package com.example;
 import akka.actor.ActorRef;
 import java.util.ArrayList;
 /**
- * Class containing the processes' references
+ * Class containing the processes' references. One instance is shared by all
+ * the processes of a JVM, so the view costs N references per JVM, not per process.
  */
 public class Members {
             public final ArrayList<ActorRef> references;
             public final String data;
+            private final ActorRef[] array; // by process index, for the broadcast loop
 
     public Members(ArrayList<ActorRef> references) {
         this.references = references;
-        String s="[ ";
-        for (ActorRef a : references){
-            s+=a.path().name()+" ";
+        this.array = references.toArray(new ActorRef[0]);
+        StringBuilder s = new StringBuilder(2 + 8 * array.length).append("[ ");
+        for (ActorRef a : array){
+            s.append(a.path().name()).append(' ');
         }
-        s+="]";    
-        data=s;
+        data = s.append(']').toString();
+    }
+
+    public ActorRef get(int index) {
+        return array[index];
+    }
+
+    public int size() {
+        return array.length;
+    }
+
+    // Not copied: callers must not write to it
+    ActorRef[] array() {
+        return array;
+    }
+
+    /**
+     * Index of a process reference, or -1 for any other actor.
+     * Processes are named after their index, so no lookup table is needed.
+     */
+    public int indexOf(ActorRef ref) {
+        if (ref == null) {
+            return -1;
+        }
+        String name = ref.path().name();
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return -1;
+            }
+        }
+        if (name.isEmpty() || name.length() > 9) {
+            return -1;
+        }
+        int index = Integer.parseInt(name);
+        return index < array.length && array[index].equals(ref) ? index : -1;
     }
             
 }
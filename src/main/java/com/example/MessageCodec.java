@@ -0,0 +1,370 @@
+package com.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of the consensus and harness control messages. A message is a one byte type tag
+ * followed by its int fields as zig-zag varints, the epoch first for an EpochMsg;
+ * a Value is a tag byte and then either a varlong or a varint length and the
+ * payload bytes. The tag identifies the message, so no manifest is needed next to it.
+ */
+public final class MessageCodec {
+	private static final byte READ = 1;
+	private static final byte GATHER = 2;
+	private static final byte IMPOSE = 3;
+	private static final byte ACK = 4;
+	private static final byte ABORT = 5;
+	private static final byte DECIDE = 6;
+	private static final byte HOLD = 7;
+	private static final byte LAUNCH = 8;
+	private static final byte CRASH = 9;
+	private static final byte LEADER_SELECTION = 10;
+	private static final byte RESTART = 11;
+	private static final byte DECISION_REPORT = 12;
+	static final byte MEMBERS = 13; // written by ConsensusSerializer, it needs the actor system to resolve references
+	private static final byte HEARTBEAT = 14;
+	private static final byte RESTARTED = 15;
+	private static final byte PROTOCOL_STATS_REQUEST = 16;
+	private static final byte PROTOCOL_STATS = 17;
+	private static final byte PULL = 18;
+
+	private static final byte NO_VALUE = 0;
+	private static final byte LONG_VALUE = 1;
+	private static final byte BYTES_VALUE = 2;
+
+	private MessageCodec() {
+	}
+
+	public static boolean supports(Object msg) {
+		return msg instanceof ReadMsg || msg instanceof GatherMsg || msg instanceof ImposeMsg || msg instanceof AckMsg
+				|| msg instanceof AbortMsg || msg instanceof DecideMsg || msg instanceof HoldMsg
+				|| msg instanceof LaunchMsg || msg instanceof CrashMsg || msg instanceof LeaderSelectionMsg
+				|| msg instanceof RestartMsg || msg instanceof RestartedMsg || msg instanceof DecisionReportMsg
+				|| msg instanceof HeartbeatMsg || msg instanceof PullMsg || msg instanceof ProtocolStatsMsg
+				|| msg instanceof ProtocolStats;
+	}
+
+	// Exact number of bytes encode will write
+	public static int size(Object msg) {
+		if (msg instanceof EpochMsg) {
+			return 1 + varintSize(((EpochMsg) msg).epoch) + bodySize(msg);
+		} else if (msg instanceof RestartMsg) {
+			return 1 + varintSize(((RestartMsg) msg).epoch);
+		} else if (msg instanceof RestartedMsg) {
+			RestartedMsg m = (RestartedMsg) msg;
+			return 1 + varintSize(m.id) + varintSize(m.epoch);
+		} else if (msg instanceof ProtocolStatsMsg) {
+			return 1;
+		} else if (msg instanceof ProtocolStats) {
+			int size = 1;
+			for (long v : statsFields((ProtocolStats) msg)) {
+				size += varlongSize(v);
+			}
+			return size;
+		}
+		throw new IllegalArgumentException("No binary layout for " + msg.getClass().getName());
+	}
+
+	// Size of what follows the tag and epoch of an EpochMsg
+	private static int bodySize(Object msg) {
+		if (msg instanceof ReadMsg) {
+			ReadMsg m = (ReadMsg) msg;
+			return varintSize(m.slot) + varintSize(m.ballot);
+		} else if (msg instanceof GatherMsg) {
+			GatherMsg m = (GatherMsg) msg;
+			return varintSize(m.slot) + varintSize(m.ballot) + varintSize(m.imposeballot) + valueSize(m.estimate)
+					+ varintSize(m.free);
+		} else if (msg instanceof ImposeMsg) {
+			ImposeMsg m = (ImposeMsg) msg;
+			return varintSize(m.slot) + varintSize(m.ballot) + valueSize(m.proposal);
+		} else if (msg instanceof AckMsg) {
+			AckMsg m = (AckMsg) msg;
+			return varintSize(m.slot) + varintSize(m.ballot);
+		} else if (msg instanceof AbortMsg) {
+			AbortMsg m = (AbortMsg) msg;
+			return varintSize(m.slot) + varintSize(m.ballot) + varintSize(m.highest - m.ballot);
+		} else if (msg instanceof DecideMsg) {
+			DecideMsg m = (DecideMsg) msg;
+			return varintSize(m.slot) + valueSize(m.proposal) + varintSize(m.id) + varintSize(m.b);
+		} else if (msg instanceof HoldMsg || msg instanceof HeartbeatMsg) {
+			return 0;
+		} else if (msg instanceof PullMsg) {
+			return varintSize(((PullMsg) msg).slot);
+		} else if (msg instanceof LaunchMsg) {
+			return varlongSize(((LaunchMsg) msg).seed);
+		} else if (msg instanceof CrashMsg) {
+			return 1;
+		} else if (msg instanceof LeaderSelectionMsg) {
+			return varintSize(((LeaderSelectionMsg) msg).leaderId);
+		} else if (msg instanceof DecisionReportMsg) {
+			DecisionReportMsg m = (DecisionReportMsg) msg;
+			return 1 + varintSize(m.id) + varintSize(m.decideMessages);
+		}
+		throw new IllegalArgumentException("No binary layout for " + msg.getClass().getName());
+	}
+
+	public static void encode(Object msg, ByteBuffer buf) {
+		if (msg instanceof ReadMsg) {
+			ReadMsg m = (ReadMsg) msg;
+			buf.put(READ);
+			putVarint(buf, m.epoch);
+			putVarint(buf, m.slot);
+			putVarint(buf, m.ballot);
+		} else if (msg instanceof GatherMsg) {
+			GatherMsg m = (GatherMsg) msg;
+			buf.put(GATHER);
+			putVarint(buf, m.epoch);
+			putVarint(buf, m.slot);
+			putVarint(buf, m.ballot);
+			putVarint(buf, m.imposeballot);
+			putValue(buf, m.estimate);
+			putVarint(buf, m.free);
+		} else if (msg instanceof ImposeMsg) {
+			ImposeMsg m = (ImposeMsg) msg;
+			buf.put(IMPOSE);
+			putVarint(buf, m.epoch);
+			putVarint(buf, m.slot);
+			putVarint(buf, m.ballot);
+			putValue(buf, m.proposal);
+		} else if (msg instanceof AckMsg) {
+			AckMsg m = (AckMsg) msg;
+			buf.put(ACK);
+			putVarint(buf, m.epoch);
+			putVarint(buf, m.slot);
+			putVarint(buf, m.ballot);
+		} else if (msg instanceof AbortMsg) {
+			AbortMsg m = (AbortMsg) msg;
+			buf.put(ABORT);
+			putVarint(buf, m.epoch);
+			putVarint(buf, m.slot);
+			putVarint(buf, m.ballot);
+			putVarint(buf, m.highest - m.ballot); // the hint as a distance, mostly a round or two
+		} else if (msg instanceof DecideMsg) {
+			DecideMsg m = (DecideMsg) msg;
+			buf.put(DECIDE);
+			putVarint(buf, m.epoch);
+			putVarint(buf, m.slot);
+			putValue(buf, m.proposal);
+			putVarint(buf, m.id);
+			putVarint(buf, m.b);
+		} else if (msg instanceof HoldMsg) {
+			buf.put(HOLD);
+			putVarint(buf, ((HoldMsg) msg).epoch);
+		} else if (msg instanceof LaunchMsg) {
+			buf.put(LAUNCH);
+			putVarint(buf, ((LaunchMsg) msg).epoch);
+			putVarlong(buf, ((LaunchMsg) msg).seed);
+		} else if (msg instanceof CrashMsg) {
+			buf.put(CRASH);
+			putVarint(buf, ((CrashMsg) msg).epoch);
+			buf.put((byte) (((CrashMsg) msg).hasReceivedCrashMsg ? 1 : 0));
+		} else if (msg instanceof LeaderSelectionMsg) {
+			buf.put(LEADER_SELECTION);
+			putVarint(buf, ((LeaderSelectionMsg) msg).epoch);
+			putVarint(buf, ((LeaderSelectionMsg) msg).leaderId);
+		} else if (msg instanceof RestartMsg) {
+			buf.put(RESTART);
+			putVarint(buf, ((RestartMsg) msg).epoch);
+		} else if (msg instanceof RestartedMsg) {
+			buf.put(RESTARTED);
+			putVarint(buf, ((RestartedMsg) msg).id);
+			putVarint(buf, ((RestartedMsg) msg).epoch);
+		} else if (msg instanceof HeartbeatMsg) {
+			buf.put(HEARTBEAT);
+			putVarint(buf, ((HeartbeatMsg) msg).epoch);
+		} else if (msg instanceof PullMsg) {
+			buf.put(PULL);
+			putVarint(buf, ((PullMsg) msg).epoch);
+			putVarint(buf, ((PullMsg) msg).slot);
+		} else if (msg instanceof DecisionReportMsg) {
+			DecisionReportMsg m = (DecisionReportMsg) msg;
+			buf.put(DECISION_REPORT);
+			putVarint(buf, m.epoch);
+			putVarint(buf, m.id);
+			buf.put((byte) (m.viaQuorum ? 1 : 0));
+			putVarint(buf, m.decideMessages);
+		} else if (msg instanceof ProtocolStatsMsg) {
+			buf.put(PROTOCOL_STATS_REQUEST);
+		} else if (msg instanceof ProtocolStats) {
+			buf.put(PROTOCOL_STATS);
+			for (long v : statsFields((ProtocolStats) msg)) {
+				putVarlong(buf, v);
+			}
+		} else {
+			throw new IllegalArgumentException("No binary layout for " + msg.getClass().getName());
+		}
+	}
+
+	// Counters in the order they are written
+	private static long[] statsFields(ProtocolStats stats) {
+		int types = ProtocolStats.TYPES.length;
+		long[] fields = new long[2 * types + 11];
+		System.arraycopy(stats.sent, 0, fields, 0, types);
+		System.arraycopy(stats.received, 0, fields, types, types);
+		int i = 2 * types;
+		fields[i++] = stats.ballots;
+		fields[i++] = stats.fastImposes;
+		fields[i++] = stats.abortedBallots;
+		fields[i++] = stats.retries;
+		fields[i++] = stats.widened;
+		fields[i++] = stats.readNanos;
+		fields[i++] = stats.reads;
+		fields[i++] = stats.imposeNanos;
+		fields[i++] = stats.imposes;
+		fields[i++] = stats.decideNanos;
+		fields[i] = stats.decisions;
+		return fields;
+	}
+
+	private static ProtocolStats getStats(ByteBuffer buf) {
+		ProtocolStats stats = new ProtocolStats();
+		for (int t = 0; t < ProtocolStats.TYPES.length; t++) {
+			stats.sent[t] = getVarlong(buf);
+		}
+		for (int t = 0; t < ProtocolStats.TYPES.length; t++) {
+			stats.received[t] = getVarlong(buf);
+		}
+		stats.ballots = getVarlong(buf);
+		stats.fastImposes = getVarlong(buf);
+		stats.abortedBallots = getVarlong(buf);
+		stats.retries = getVarlong(buf);
+		stats.widened = getVarlong(buf);
+		stats.readNanos = getVarlong(buf);
+		stats.reads = getVarlong(buf);
+		stats.imposeNanos = getVarlong(buf);
+		stats.imposes = getVarlong(buf);
+		stats.decideNanos = getVarlong(buf);
+		stats.decisions = getVarlong(buf);
+		return stats;
+	}
+
+	private static AbortMsg abort(int epoch, int slot, int ballot, int above) {
+		return new AbortMsg(epoch, slot, ballot, ballot + above);
+	}
+
+	// Reads one message from the position of buf; payload bytes are copied out of it
+	public static Object decode(ByteBuffer buf) {
+		byte tag = buf.get();
+		switch (tag) {
+		case READ:
+			return new ReadMsg(getVarint(buf), getVarint(buf), getVarint(buf));
+		case GATHER:
+			return new GatherMsg(getVarint(buf), getVarint(buf), getVarint(buf), getVarint(buf), getValue(buf), getVarint(buf));
+		case IMPOSE:
+			return new ImposeMsg(getVarint(buf), getVarint(buf), getVarint(buf), getValue(buf));
+		case ACK:
+			return new AckMsg(getVarint(buf), getVarint(buf), getVarint(buf));
+		case ABORT:
+			return abort(getVarint(buf), getVarint(buf), getVarint(buf), getVarint(buf));
+		case DECIDE:
+			return new DecideMsg(getVarint(buf), getVarint(buf), getValue(buf), getVarint(buf), getVarint(buf));
+		case HOLD:
+			return new HoldMsg(getVarint(buf));
+		case LAUNCH:
+			return new LaunchMsg(getVarint(buf), getVarlong(buf));
+		case CRASH:
+			return new CrashMsg(getVarint(buf), buf.get() != 0);
+		case LEADER_SELECTION:
+			return new LeaderSelectionMsg(getVarint(buf), getVarint(buf));
+		case RESTART:
+			return new RestartMsg(getVarint(buf));
+		case RESTARTED:
+			return new RestartedMsg(getVarint(buf), getVarint(buf));
+		case HEARTBEAT:
+			return new HeartbeatMsg(getVarint(buf));
+		case PULL:
+			return new PullMsg(getVarint(buf), getVarint(buf));
+		case PROTOCOL_STATS_REQUEST:
+			return new ProtocolStatsMsg();
+		case PROTOCOL_STATS:
+			return getStats(buf);
+		case DECISION_REPORT:
+			return new DecisionReportMsg(getVarint(buf), getVarint(buf), buf.get() != 0, getVarint(buf));
+		default:
+			throw new IllegalArgumentException("Unknown message tag " + tag);
+		}
+	}
+
+	private static int valueSize(Value v) {
+		if (v == null) {
+			return 1;
+		}
+		if (v instanceof Value.LongValue) {
+			return 1 + varlongSize(((Value.LongValue) v).value);
+		}
+		return 1 + varintSize(v.size()) + v.size();
+	}
+
+	private static void putValue(ByteBuffer buf, Value v) {
+		if (v == null) {
+			buf.put(NO_VALUE);
+		} else if (v instanceof Value.LongValue) {
+			buf.put(LONG_VALUE);
+			putVarlong(buf, ((Value.LongValue) v).value);
+		} else {
+			buf.put(BYTES_VALUE);
+			putVarint(buf, v.size());
+			v.writeTo(buf);
+		}
+	}
+
+	private static Value getValue(ByteBuffer buf) {
+		byte tag = buf.get();
+		switch (tag) {
+		case NO_VALUE:
+			return null;
+		case LONG_VALUE:
+			return Value.of(getVarlong(buf));
+		case BYTES_VALUE:
+			byte[] bytes = new byte[getVarint(buf)];
+			buf.get(bytes);
+			return Value.wrap(bytes);
+		default:
+			throw new IllegalArgumentException("Unknown value tag " + tag);
+		}
+	}
+
+	// Zig-zag so that the negative initial ballots stay short too
+	static int varintSize(int v) {
+		return varlongSize(v);
+	}
+
+	private static int varlongSize(long v) {
+		long z = (v << 1) ^ (v >> 63);
+		int size = 1;
+		while ((z & ~0x7FL) != 0) {
+			z >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	static void putVarint(ByteBuffer buf, int v) {
+		putVarlong(buf, v);
+	}
+
+	private static void putVarlong(ByteBuffer buf, long v) {
+		long z = (v << 1) ^ (v >> 63);
+		while ((z & ~0x7FL) != 0) {
+			buf.put((byte) ((z & 0x7F) | 0x80));
+			z >>>= 7;
+		}
+		buf.put((byte) z);
+	}
+
+	static int getVarint(ByteBuffer buf) {
+		return (int) getVarlong(buf);
+	}
+
+	private static long getVarlong(ByteBuffer buf) {
+		long z = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buf.get();
+			z |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return (z >>> 1) ^ -(z & 1);
+	}
+}
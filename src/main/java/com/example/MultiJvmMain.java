@@ -0,0 +1,157 @@
+package com.example;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.UntypedAbstractActor;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The Main sweep with the processes spread over several local JVMs connected by
+ * Artery TCP on loopback, so messages go through serialization and the network
+ * stack. For every combination this JVM starts the child JVMs (ProcessHost),
+ * gives all processes the remote references and runs the experiments as Main does.
+ * Decisions reach the coordinator as DecisionReportMsg and are timed when they
+ * arrive, so the delays include one loopback hop. Child output goes to multijvm-host<k>.log.
+ *
+ * Takes the Main options plus --jvms (default 2) and --port (default 25520).
+ */
+public class MultiJvmMain {
+	static final String SYSTEM_NAME = "consensus";
+	static final String COLLECTOR = "collector";
+	private static final long STARTUP_TIMEOUT_MS = 60000;
+
+	public static void main(String[] args) throws Exception {
+		SweepConfig config = SweepConfig.parse(args);
+		ActorSystem system = ActorSystem.create(SYSTEM_NAME, remoteConfig(config.port));
+		AtomicReference<Experiment> current = new AtomicReference<>();
+		system.actorOf(ReportCollector.props(current), COLLECTOR);
+
+		ResultsStore store = new ResultsStore(
+				Paths.get(config.results != null ? config.results : "./results_multijvm.jsonl"));
+		for (SweepConfig.Combination c : store.pending(config.combinations(), config.seed, config.runs)) {
+			Experiment experiment = new Experiment(c, config.runs);
+			SplittableRandom runSeeds = new SplittableRandom(c.seed(config.seed));
+			current.set(experiment);
+			List<java.lang.Process> hosts = startHosts(c, config);
+			try {
+				ArrayList<ActorRef> references = resolveProcesses(system, c.n, config.port, config.jvms);
+				Members m = new Members(references);
+				for (ActorRef actor : references) {
+					actor.tell(m, ActorRef.noSender());
+				}
+				for (int exp = 0; exp < config.runs; exp++) {
+					long runSeed = runSeeds.nextLong();
+					Main.runOnce(system, references, experiment, runSeed);
+					store.append(c, config.seed, config.runs, exp, runSeed, experiment);
+					experiment.finishRun();
+				}
+			} finally {
+				stopHosts(hosts);
+			}
+			Main.calculateAverageConsensusDelay(experiment);
+		}
+		ReportMain.generate(store.path(), "_multijvm");
+		system.terminate();
+	}
+
+	static Config remoteConfig(int port) {
+		return ConfigFactory.parseString("akka.remote.artery.canonical.port = " + port)
+				.withFallback(ConfigFactory.load("multijvm"));
+	}
+
+	static String address(int port) {
+		return "akka://" + SYSTEM_NAME + "@127.0.0.1:" + port;
+	}
+
+	// Child k hosts processes k, k + jvms, k + 2 * jvms, ...
+	private static List<java.lang.Process> startHosts(SweepConfig.Combination c, SweepConfig config) throws IOException {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		List<java.lang.Process> hosts = new ArrayList<>();
+		for (int k = 0; k < config.jvms; k++) {
+			ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					ProcessHost.class.getName(), "" + k, "" + config.jvms, "" + config.port, "" + c.n, "" + c.f,
+					"" + c.tle, "" + c.alpha, c.dissemination.name(), "" + c.fanout, "" + c.heartbeat, "" + c.suspect,
+					"" + c.adaptive, c.crashAfter.name(), c.backoff.toString(), "" + c.thrifty,
+					c.dispatcher);
+			builder.redirectErrorStream(true).redirectOutput(new File("multijvm-host" + k + ".log"));
+			hosts.add(builder.start());
+		}
+		return hosts;
+	}
+
+	// Waits until every process answers at its remote path
+	private static ArrayList<ActorRef> resolveProcesses(ActorSystem system, int n, int port, int jvms)
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MS;
+		ArrayList<ActorRef> references = new ArrayList<>();
+		while (references.size() < n) {
+			int i = references.size();
+			String path = address(port + 1 + i % jvms) + "/user/" + i;
+			try {
+				references.add(system.actorSelection(path).resolveOne(Duration.ofSeconds(1)).toCompletableFuture().get());
+			} catch (Exception e) {
+				if (System.currentTimeMillis() > deadline) {
+					throw new IllegalStateException("Process " + path + " did not start", e);
+				}
+				Thread.sleep(200);
+			}
+		}
+		return references;
+	}
+
+	private static void stopHosts(List<java.lang.Process> hosts) throws InterruptedException {
+		for (java.lang.Process host : hosts) {
+			host.destroy();
+		}
+		for (java.lang.Process host : hosts) {
+			if (!host.waitFor(10, TimeUnit.SECONDS)) {
+				host.destroyForcibly();
+			}
+		}
+	}
+
+	/**
+	 * Forwards the decisions reported by the child JVMs to the current Experiment
+	 */
+	static class ReportCollector extends UntypedAbstractActor {
+		private final AtomicReference<Experiment> current;
+
+		ReportCollector(AtomicReference<Experiment> current) {
+			this.current = current;
+		}
+
+		static Props props(AtomicReference<Experiment> current) {
+			return Props.create(ReportCollector.class, () -> new ReportCollector(current));
+		}
+
+		@Override
+		public void onReceive(Object message) {
+			if (message instanceof DecisionReportMsg) {
+				DecisionReportMsg report = (DecisionReportMsg) message;
+				Experiment experiment = current.get();
+				if (report.epoch != experiment.epoch()) {
+					return; // from a run that is over, the processes have been restarted since
+				}
+				experiment.countDecideMessages(report.decideMessages);
+				if (report.viaQuorum) {
+					experiment.reportDelay(report.id);
+				} else {
+					experiment.countDecision(report.id);
+				}
+			}
+		}
+	}
+}
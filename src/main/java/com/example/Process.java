@@ -5,300 +5,207 @@ import akka.actor.Props;
 import akka.actor.UntypedAbstractActor;
 import akka.event.Logging;
 import akka.event.LoggingAdapter;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.time.Duration;
+import java.util.List;
 
-public class Process extends UntypedAbstractActor {
+/**
+ * Akka host of ProcessCore: translates actor references to process indexes and back
+ */
+public class Process extends UntypedAbstractActor implements ProcessCore.Env {
 	private final LoggingAdapter log = Logging.getLogger(getContext().getSystem(), this);
-	private final int N;
-	private final int id;
-	private final int f;
-	private final int tle;
-	private final double alpha;
-	private int ballot;
-	private int readballot = 0;
-	private int imposeballot;
-	private int msgballot = 0;
-	private String proposal = null;
-	private String estimate = null;
+	private final ProcessCore core;
 	private Members processes;
-	private Map<ActorRef, int[]> states = new HashMap<>();
-	private Map<ActorRef, Integer> ackResponses = new HashMap<>();
-	private Map<ActorRef, String> estimateMap = new HashMap<>();
-
-	private boolean hold = false;
-	private boolean decided = false;
-	private boolean isFaultProneMode = false;
-	private boolean isSilentMode = false;
-	private boolean isDebugMode = false; // For debugging purposes
-
-	private static final double CRASH_PROBABILITY = 0;
+	private ActorRef subscriber = null;
+	private final Experiment experiment; // null outside of a sweep
+	private final ActorRef reporter; // coordinator of a multi-JVM sweep, gets what would go to experiment
+	private int decideMessages = 0; // sent since the last report to reporter
+	private long reportedTimeout = -1;
 
 	public Process(int ID, int nb, int f, int tle, double alpha) {
-		this.id = ID;
-		this.N = nb;
-		this.ballot = ID - nb;
-		this.imposeballot = ID - nb;
-		this.f = f;
-		this.tle = tle;
-		this.alpha = alpha;
-		
-	}
-	
-	
-	public static Props createActor(int id, int n, int f, int tle, double alpha) {
-	    return Props.create(Process.class, () -> new Process(id, n, f, tle, alpha));
+		this(ID, nb, f, tle, alpha, 0);
 	}
-	
-	/*
-	public static Props createActor(int ID, int nb) {
-		return Props.create(Process.class, () -> new Process(ID, nb));
-	}*/
 
-	private void handleLaunch() {
-		String value = (Math.random() >= 0.5) ? "1" : "0";
-		propose(value);
+	public Process(int ID, int nb, int f, int tle, double alpha, Experiment experiment) {
+		this(ID, nb, f, tle, alpha, 0, 1, 0, experiment);
 	}
 
-	private void startLeadership() {
-		if (decided) {
-			return; 
-		}
-
-		log.info("Process {} is elected as leader. Sending HOLD message...", id);
-		for (ActorRef actor : processes.references) {
-			if (!actor.equals(self())) {
-				actor.tell(new HoldMsg(), self());
-			}
-		}
+	public Process(int ID, int nb, int f, int tle, double alpha, int window) {
+		this(ID, nb, f, tle, alpha, window, 1, 0);
 	}
 
-	private void handleHold() {
-		//log.info("Process {} received HOLD message. Stopping propose operations.", id);
-		hold = true;
+	public Process(int ID, int nb, int f, int tle, double alpha, int window, int maxBatch, long maxBatchDelayMs) {
+		this(ID, nb, f, tle, alpha, window, maxBatch, maxBatchDelayMs, null);
 	}
 
+	// Log mode with the leader fast path on or off
+	public Process(int ID, int nb, int f, int tle, double alpha, int window, int maxBatch, long maxBatchDelayMs,
+			boolean fastPath) {
+		this.experiment = null;
+		this.reporter = null;
+		this.core = new ProcessCore(this, ID, nb, f, tle, alpha, window, maxBatch, maxBatchDelayMs, fastPath);
+	}
 
-	private void propose(String v) { // TODO: change to int?
-		if (decided)
-			return;
-
-		proposal = v;
-		ballot += N;
-		states.clear();
+	public Process(int ID, int nb, int f, int tle, double alpha, int window, int maxBatch, long maxBatchDelayMs,
+			Experiment experiment) {
+		this.experiment = experiment;
+		this.reporter = null;
+		this.core = experiment == null
+				? new ProcessCore(this, ID, nb, f, tle, alpha, window, maxBatch, maxBatchDelayMs)
+				: new ProcessCore(this, ID, experiment.combination);
+	}
 
-		 log.info("Process {} proposes message: {}", id, v);
 
+	// Process in a child JVM of MultiJvmMain
+	public Process(int ID, SweepConfig.Combination c, ActorRef reporter) {
+		this.experiment = null;
+		this.reporter = reporter;
+		this.core = new ProcessCore(this, ID, c);
+	}
 
-		for (ActorRef actor : processes.references) {
-			if (!actor.equals(self())) {
-				actor.tell(new ReadMsg(ballot), self());
-			}
-		}
+	public static Props createActor(int id, int n, int f, int tle, double alpha) {
+	    return Props.create(Process.class, () -> new Process(id, n, f, tle, alpha));
 	}
 
-	private void handleAbort(int b) {
-		if (b == ballot) {
+	public static Props createActor(int id, int n, int f, int tle, double alpha, Experiment experiment) {
+	    return onDispatcher(Props.create(Process.class, () -> new Process(id, n, f, tle, alpha, experiment)),
+	    		experiment.combination);
+	}
 
-			states.clear();
-			ackResponses.clear();
-			if(!hold)
-				propose(proposal);
-		}
+	public static Props createActor(int id, int n, int f, int tle, double alpha, int window) {
+	    return Props.create(Process.class, () -> new Process(id, n, f, tle, alpha, window));
 	}
 
+	public static Props createActor(int id, int n, int f, int tle, double alpha, int window, int maxBatch, long maxBatchDelayMs) {
+	    return Props.create(Process.class, () -> new Process(id, n, f, tle, alpha, window, maxBatch, maxBatchDelayMs));
+	}
 
-	private void handleReadRequest(int b, ActorRef sender) {
+	public static Props createActor(int id, int n, int f, int tle, double alpha, int window, int maxBatch, long maxBatchDelayMs,
+			boolean fastPath) {
+	    return Props.create(Process.class, () -> new Process(id, n, f, tle, alpha, window, maxBatch, maxBatchDelayMs, fastPath));
+	}
 
-		if (readballot > b || imposeballot > b) {
-			sender.tell(new AbortMsg(b), self());
-		} else {
-			readballot = b;
-			sender.tell(new GatherMsg(b, imposeballot, estimate), self());
+	public static Props createActor(int id, SweepConfig.Combination c, ActorRef reporter) {
+	    return onDispatcher(Props.create(Process.class, () -> new Process(id, c, reporter)), c);
+	}
 
-			
-			if (isDebugMode) { // Output more info
-				log.info("Process {} accepts ReadMsg and sends GatherMsg: new readballot={}, imposeballot={}, estimate={}",
-			 id, readballot, imposeballot, estimate);
-			}
-		}
+	// The combination's dispatcher profile from application.conf
+	private static Props onDispatcher(Props props, SweepConfig.Combination c) {
+	    return c.dispatcherPath() != null ? props.withDispatcher(c.dispatcherPath()) : props;
 	}
 
+	/*
+	public static Props createActor(int ID, int nb) {
+		return Props.create(Process.class, () -> new Process(ID, nb));
+	}*/
 
-	private void handleReadResponse(int b, int estBallot, String est, ActorRef sender) {
-		if (imposeballot == ballot) {
-			return;
+	@Override
+	public void send(int to, Object msg) {
+		processes.get(to).tell(msg, self());
+		if (msg instanceof DecideMsg) {
+			countDecideMessages(1);
 		}
+	}
 
-		states.put(sender, new int[] { estBallot, est != null ? 1 : 0 });
-
-		if (states.size() >= N / 2) {
-			int maxBallot = -1;
-			String selectedValue = null;
-
-			for (Map.Entry<ActorRef, int[]> entry : states.entrySet()) {
-				int[] state = entry.getValue();
-				if (state[0] > maxBallot) { 
-					maxBallot = state[0];
-					if (estimateMap.get(entry.getKey()) != null) {
-						selectedValue = estimateMap.get(entry.getKey());
-					} else
-						selectedValue = proposal;
-				}
-			}
-
-			if (maxBallot > 0) {
-				proposal = selectedValue;
-			}
-
-			ackResponses.clear();
-
-			//log.info("Process {} moves to write phase with proposal: {}", id, proposal);
-
-			for (ActorRef actor : processes.references) {
-				if (!actor.equals(self())) {
-					actor.tell(new ImposeMsg(ballot, proposal), self());
-				}
+	@Override
+	public void broadcast(Object msg) {
+		// By index: comparing every reference with self() costs a path comparison per peer
+		ActorRef[] references = processes.array();
+		int own = core.id() - 1;
+		for (int i = 0; i < references.length; i++) {
+			if (i != own) {
+				references[i].tell(msg, self());
 			}
 		}
+		if (msg instanceof DecideMsg) {
+			countDecideMessages(references.length - 1);
+		}
 	}
 
-
-	private void handleImposeRequest(int b, String v, ActorRef sender) {
-		if (readballot > b || imposeballot > b) {
-			//log.info("abort impose readballot = {}, imposeballot = {}, recieved ballot = {} ", readballot, imposeballot, b );
-			sender.tell(new AbortMsg(b), self());
+	private void countDecideMessages(int messages) {
+		if (experiment != null) {
+			experiment.countDecideMessages(messages);
 		} else {
-			//log.info("process {} accept impose readballot = {}, imposeballot = {}, recieved ballot = {} ", id , readballot, imposeballot, b );
-			estimate = v;
-			imposeballot = b;
-			sender.tell(new AckMsg(b), self());
-
-			
-			if (isDebugMode) { // Output more info
-				log.info("Process {} accepts ImposMsg and sends AckMsg: new readballot={}, imposeballot={}, estimate={}",
-						id, readballot, imposeballot, estimate);
-			}
-			 
+			decideMessages += messages;
 		}
 	}
 
-	private void handleAckResponse(int b, ActorRef sender) {
-		if (decided)
-			return;
+	@Override
+	public void schedule(long delayMs, Object msg) {
+		getContext().getSystem().scheduler().scheduleOnce(Duration.ofMillis(delayMs), self(), msg,
+				getContext().getDispatcher(), self());
+	}
 
-		ackResponses.put(sender, b);
-		//log.info("Process {} recieves ack message, with ballot:{} total ack received: {}", id, b, ackResponses.size());
-		if (ackResponses.size() >= N / 2) {
-			Main.reportDelay(id);
-			decided = true;
-			//log.info("Process {} decides on message: {}  with ballot: {}", id, proposal ,b);
-			for (ActorRef actor : processes.references) {
-				if (!actor.equals(self())) {
-					actor.tell(new DecideMsg(proposal, id, b), self());
-				}
-			}
-			int count = Main.decideCount.incrementAndGet();
-		}
+	@Override
+	public long nowNanos() {
+		return System.nanoTime();
 	}
 
-	
-	private void handleDecide(String v, int from, int b) {
-		if(b>msgballot) {
-			estimate = v;
-			msgballot = b;
-		}
-		else{
-			//log.info("Process {} msgballot: {} from process {} with ballot {}", id,msgballot, from, b );
-			return;
-		}
-		decided = true;
-		//log.info("Process {} final decision: {} from process {} with ballot {}", id, v, from, b );
-		for (ActorRef actor : processes.references) {
-			if (!actor.equals(self())) {
-				actor.tell(new DecideMsg(v, from, msgballot), self());
+	@Override
+	public void reportDelay() {
+		if (experiment != null) {
+			long delay = experiment.reportDelay(core.id());
+			if (delay >= 0) {
+				log.info("Process {} has reached DECIDE with consensus delay = {} ms", core.id(), delay / 1e6);
 			}
+		} else if (reporter != null) {
+			reporter.tell(new DecisionReportMsg(core.epoch(), core.id(), true, decideMessages), self());
+			decideMessages = 0;
 		}
-
-		int count = Main.decideCount.incrementAndGet();
 	}
 
-
-	private boolean determineIfWillCrash() {
-		if (Math.random() >= CRASH_PROBABILITY) {
-			return false;
+	@Override
+	public void countDecision() {
+		if (experiment != null) {
+			experiment.countDecision(core.id());
+		} else if (reporter != null) {
+			reporter.tell(new DecisionReportMsg(core.epoch(), core.id(), false, decideMessages), self());
+			decideMessages = 0;
 		}
-		// Process will crash
-		isSilentMode = true;
-		log.info("Process {} has crashed prob = {}.", id, CRASH_PROBABILITY);
-		return true;
 	}
 
-	// Restart a process
-	private void handleRestart() {
-
-		ballot = id - N;
-		readballot = 0;
-		imposeballot = id - N;
-		msgballot = 0;
-		proposal = null;
-		estimate = null;
-		states.clear();
-		ackResponses.clear();
-		estimateMap.clear();
-		hold = false;
-		decided = false;
-		isFaultProneMode = false;
-		isSilentMode = false;
+	@Override
+	public void deliver(int slot, Value value, List<String> commands) {
+		if (subscriber != null) {
+			subscriber.tell(new LogEntryMsg(slot, value, commands), self());
+		}
+	}
 
-//		log.info("Process {} has restarted.", id);
+	@Override
+	public void log(String template, Object... args) {
+		switch (args.length) {
+		case 0: log.info(template); break;
+		case 1: log.info(template, args[0]); break;
+		case 2: log.info(template, args[0], args[1]); break;
+		case 3: log.info(template, args[0], args[1], args[2]); break;
+		default: log.info(template, args[0], args[1], args[2], args[3]); break;
+		}
 	}
 
 	// Returns true if process is fault-prone
 	public boolean checkIfFaultProne() {
-		return isFaultProneMode;
+		return core.checkIfFaultProne();
 	}
 
 	@Override
 	public void onReceive(Object message) {
-		if (message instanceof RestartMsg) {
-			handleRestart();
-			return;
-		}
-		if (isSilentMode) {
-			return;
-		}
-		if (isFaultProneMode && determineIfWillCrash()) {
-			return; // Process crashes
-		}
-		// Process does not crash, continues as per normal
-
 		if (message instanceof Members) {
 			processes = (Members) message;
 			// log.info("Process {} received process list", id);
-		} else if (message instanceof LaunchMsg) {
-			handleLaunch();
-		} else if (message instanceof CrashMsg) {
-			isFaultProneMode = true;
-		} else if (message instanceof LeaderSelectionMsg) {
-			startLeadership(); 
-		} else if (message instanceof HoldMsg) {
-			handleHold();
-		} else if (message instanceof ReadMsg) {
-			handleReadRequest(((ReadMsg) message).ballot, getSender());
-		} else if (message instanceof GatherMsg) {
-			GatherMsg msg = (GatherMsg) message;
-			handleReadResponse(msg.ballot, msg.imposeballot, msg.estimate, getSender());
-		} else if (message instanceof ImposeMsg) {
-			ImposeMsg msg = (ImposeMsg) message;
-			handleImposeRequest(msg.ballot, msg.proposal, getSender());
-		} else if (message instanceof AckMsg) {
-			handleAckResponse(((AckMsg) message).ballot, getSender());
-		} else if (message instanceof AbortMsg) {
-			handleAbort(((AbortMsg) message).ballot);
-		} else if (message instanceof DecideMsg) {
-			handleDecide(((DecideMsg) message).proposal, ((DecideMsg) message).id, ((DecideMsg) message).b);
+		} else if (message instanceof SubscribeMsg) {
+			subscriber = ((SubscribeMsg) message).subscriber;
+		} else if (message instanceof BatchStatsMsg) {
+			getSender().tell(core.batchStats(), self());
+		} else if (message instanceof ProtocolStatsMsg) {
+			getSender().tell(core.protocolStats(), self());
+		} else {
+			core.receive(message, processes != null ? processes.indexOf(getSender()) : -1);
+			if (message instanceof RestartMsg && !getSender().equals(getContext().getSystem().deadLetters())) {
+				getSender().tell(new RestartedMsg(core.id(), core.epoch()), self());
+			}
+			if (experiment != null && experiment.combination.adaptive && core.electionTimeoutNanos() != reportedTimeout) {
+				reportedTimeout = core.electionTimeoutNanos();
+				experiment.reportElectionTimeout(core.id(), reportedTimeout);
+			}
 		}
 	}
 }
@@ -0,0 +1,932 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Obstruction-free consensus logic of one process, independent of how messages
+ * are delivered. The Process actor runs it on Akka, the Simulator on a virtual clock.
+ * Peers are addressed by their index in the membership (id - 1).
+ */
+public class ProcessCore {
+	// Bytes of quorum state a process keeps between ballots; trackers beyond it are left to the GC.
+	// At N = 100,000 a full tracker takes 12.5 KB, so a process keeps a few of them and no more.
+	static final long MEMORY_BUDGET = 64 * 1024;
+	// Thrifty mode: wait before a phase goes to the rest of the peers, until a phase round trip was measured
+	static final long FIRST_WIDEN_MS = 2;
+	// TREE and GOSSIP: an undecided process that stopped proposing asks a random peer for the decision this often
+	static final long PULL_MS = 10;
+
+	/**
+	 * What the protocol needs from the runtime hosting it
+	 */
+	public interface Env {
+		void send(int to, Object msg);
+
+		void broadcast(Object msg); // to every process except this one
+
+		void schedule(long delayMs, Object msg); // deliver msg to this process later
+
+		long nowNanos(); // host clock, only differences are used
+
+		void reportDelay(); // this process decided through its own ack quorum
+
+		void countDecision(); // this process accepted a decision
+
+		void deliver(int slot, Value value, List<String> commands); // next entry of the decided log
+
+		void log(String template, Object... args);
+	}
+
+	private final Env env;
+	private final int N;
+	private final int id;
+	private final int f;
+	private final int tle;
+	private final double alpha; // crash probability per handled message once fault-prone
+	private final CrashPoint crashAfter; // fault-prone processes also crash right after sending this message type
+	private final int window; // 0 = single decision per run, > 0 = replicated log with that many slots in flight
+	private final Dissemination dissemination;
+	private final int fanout; // children per node for TREE, peers per forward for GOSSIP
+	private final int heartbeatMs; // 0 = leader chosen by the harness with LeaderSelectionMsg
+	private final LeaderElector elector; // null unless heartbeatMs > 0
+	private final Backoff backoff; // between an abort and the next ballot
+	private final boolean fastPath; // log mode: a leader skips the read phase of slots its read quorum covers
+	// Log mode: the proposer's own acceptor state is one of the N/2 + 1 votes of its quorums. Single decision
+	// runs keep counting the proposer without it, as the sweeps have always measured
+	private final boolean votesLocally;
+	private final boolean thrifty; // reads and imposes go to a majority of fast peers first, the rest on widening
+	// Thrifty mode, per peer index: smoothed response time in us (0 = not measured yet); the N/2 peers
+	// answering fastest, and whether responseUs changed since they were chosen
+	private final int[] responseUs;
+	private final int[] majority;
+	private final long[] byResponse; // scratch of chooseMajority
+	private boolean reselect = true;
+	private int leaderIndex = -1; // current leader according to the elector
+	private final RttEstimator rtt = new RttEstimator(); // kept across runs
+	private final ProtocolStats stats = new ProtocolStats(); // of the current run
+	private long launchedAt;
+	private Map<Integer, Slot> slots = new HashMap<>();
+	private final ArrayDeque<QuorumTracker> trackerPool = new ArrayDeque<>(); // reused across slots and runs
+	private long pooledBytes = 0; // membership bytes of the trackers in trackerPool, at most MEMORY_BUDGET
+	// Own streams, reseeded by every LaunchMsg: proposals and gossip peers, and the crash draws apart from them
+	// so that ALPHA does not change what is proposed
+	private SplittableRandom random = new SplittableRandom(0);
+	private SplittableRandom faults = random.split();
+	private SplittableRandom jitter = new SplittableRandom(0); // backoff draws, apart so that they change nothing else
+
+	// Replicated log mode
+	private ArrayDeque<Value> pending = new ArrayDeque<>();
+	private final CommandBatcher batcher; // null when commands are proposed one by one
+	private boolean leading = false; // elected; in single decision mode it only keeps Backoff from giving up
+	private int nextSlot = 0;
+	private int highestSlot = -1;
+	private int inFlight = 0;
+	private int delivered = 0;
+	// Acceptor: every slot from rangeFrom on that is not in slots yet counts as read with rangeBallot
+	private int rangeBallot = 0;
+	private int rangeFrom = Integer.MAX_VALUE;
+	// Leader: slots from fastFrom on are imposed with fastBallot right away, until an acceptor refuses it; 0 = off
+	private int fastBallot = 0;
+	private int fastFrom = 0;
+
+	private int epoch = 0; // run this process is in, set by RestartMsg and stamped on everything it sends
+	private boolean hold = false;
+	private boolean isFaultProneMode = false;
+	private boolean isSilentMode = false;
+	private boolean isDebugMode = false; // For debugging purposes
+
+	public ProcessCore(Env env, int ID, int nb, int f, int tle, double alpha, int window, int maxBatch, long maxBatchDelayMs) {
+		this(env, ID, nb, f, tle, alpha, window, maxBatch, maxBatchDelayMs, true);
+	}
+
+	public ProcessCore(Env env, int ID, int nb, int f, int tle, double alpha, int window, int maxBatch, long maxBatchDelayMs,
+			boolean fastPath) {
+		this(env, ID, nb, f, tle, alpha, window, maxBatch, maxBatchDelayMs, Dissemination.ALL_TO_ALL, 0, 0, 0,
+				CrashPoint.NONE, Backoff.OFF, fastPath, false);
+	}
+
+	// Single decision per run, as in a sweep
+	public ProcessCore(Env env, int ID, SweepConfig.Combination c) {
+		this(env, ID, c.n, c.f, c.tle, c.alpha, 0, 1, 0, c.dissemination, c.fanout, c.heartbeat, c.suspect, c.crashAfter,
+				c.backoff, false, c.thrifty);
+	}
+
+	public ProcessCore(Env env, int ID, int nb, int f, int tle, double alpha, int window, int maxBatch, long maxBatchDelayMs,
+			Dissemination dissemination, int fanout, int heartbeatMs, int suspectAfterMs, CrashPoint crashAfter,
+			Backoff backoff, boolean fastPath, boolean thrifty) {
+		if ((dissemination == Dissemination.TREE || dissemination == Dissemination.GOSSIP) && fanout < 1) {
+			throw new IllegalArgumentException(dissemination + " dissemination needs a fanout of at least 1");
+		}
+		this.env = env;
+		this.id = ID;
+		this.N = nb;
+		this.f = f;
+		this.tle = tle;
+		this.alpha = alpha;
+		this.crashAfter = crashAfter;
+		this.window = window;
+		this.batcher = maxBatch > 1 ? new CommandBatcher(maxBatch, maxBatchDelayMs) : null;
+		this.dissemination = dissemination;
+		this.fanout = fanout;
+		this.heartbeatMs = heartbeatMs;
+		this.elector = heartbeatMs > 0 ? new LeaderElector(ID - 1, suspectAfterMs) : null;
+		this.backoff = backoff;
+		this.fastPath = fastPath;
+		this.votesLocally = window > 0;
+		this.thrifty = thrifty;
+		this.responseUs = thrifty ? new int[nb] : null;
+		this.majority = thrifty ? new int[nb / 2] : null;
+		this.byResponse = thrifty ? new long[nb - 1] : null;
+	}
+
+	public int id() {
+		return id;
+	}
+
+	public int epoch() {
+		return epoch;
+	}
+
+	// Election timeout derived from the read/impose round trips seen so far, -1 before the first one
+	public long electionTimeoutNanos() {
+		return rtt.electionTimeoutNanos();
+	}
+
+	public ProtocolStats protocolStats() {
+		return stats.copy();
+	}
+
+	public BatchStats batchStats() {
+		return batcher != null ? batcher.stats().copy() : new BatchStats();
+	}
+
+	// Value slot was decided with as far as this process knows, null if not decided here
+	Value decision(int slot) {
+		Slot s = slots.get(slot);
+		return s != null && s.decided ? s.value : null;
+	}
+
+	private Slot slot(int index) {
+		Slot s = slots.get(index);
+		if (s == null) {
+			s = new Slot(index, id, N);
+			if (index >= rangeFrom) {
+				s.readballot = rangeBallot;
+			}
+			slots.put(index, s);
+			if (index > highestSlot) {
+				highestSlot = index;
+			}
+		}
+		return s;
+	}
+
+	// Gives a proposing slot its read and ack trackers
+	private void track(Slot s) {
+		if (s.states == null) {
+			s.states = tracker();
+			s.ackResponses = tracker();
+		}
+	}
+
+	private void release(Slot s) {
+		if (s.states != null) {
+			pool(s.states);
+			pool(s.ackResponses);
+			s.states = null;
+			s.ackResponses = null;
+		}
+	}
+
+	private void pool(QuorumTracker tracker) {
+		if (pooledBytes + tracker.bytes() <= MEMORY_BUDGET) {
+			tracker.clear();
+			trackerPool.add(tracker);
+			pooledBytes += tracker.bytes();
+		}
+	}
+
+	private QuorumTracker tracker() {
+		QuorumTracker tracker = trackerPool.poll();
+		if (tracker == null) {
+			return new QuorumTracker(N);
+		}
+		pooledBytes -= tracker.bytes();
+		return tracker;
+	}
+
+	private void handleLaunch() {
+		launchedAt = env.nowNanos();
+		Value value = random.nextBoolean() ? Value.ONE : Value.ZERO;
+		propose(slot(0), value);
+		if (elector != null) {
+			elector.start(nowMs());
+			leaderIndex = -1;
+			handleHeartbeatTick(elector.generation());
+		}
+	}
+
+	private long nowMs() {
+		return env.nowNanos() / 1_000_000;
+	}
+
+	private void handleHeartbeatTick(int generation) {
+		if (generation != elector.generation() || (window == 0 && slot(0).decided)) {
+			return; // tick of an earlier run, or nothing left to lead
+		}
+		updateLeader();
+		if (leaderIndex == id - 1) {
+			broadcast(new HeartbeatMsg(epoch));
+		}
+		env.schedule(heartbeatMs, new HeartbeatTickMsg(generation));
+	}
+
+	private void handleHeartbeat(int from) {
+		if (from >= 0) {
+			elector.heard(from, nowMs());
+			updateLeader();
+		}
+	}
+
+	// HoldMsg only goes out when leadership moves to us
+	private void updateLeader() {
+		int leader = elector.leader(nowMs());
+		if (leader == leaderIndex) {
+			return;
+		}
+		boolean wasLeading = leaderIndex == id - 1;
+		leaderIndex = leader;
+		if (leader == id - 1) {
+			startLeadership();
+		} else if (wasLeading) {
+			handleHold(); // a lower id is alive again
+		}
+	}
+
+	private void startLeadership() {
+		if (window == 0 && slot(0).decided) {
+			return;
+		}
+
+		env.log("Process {} is elected as leader. Sending HOLD message...", id);
+		broadcast(new HoldMsg(epoch));
+
+		leading = true;
+		if (window > 0) {
+			hold = false;
+			fillWindow();
+		} else if (hold) {
+			// Taking over from a leader that held us: our last round may have stopped on an abort,
+			// or we gave up retrying
+			hold = false;
+			slot(0).retries = 0;
+			propose(slot(0), slot(0).proposal);
+		}
+	}
+
+	private void handleHold() {
+		//log.info("Process {} received HOLD message. Stopping propose operations.", id);
+		hold = true;
+		leading = false;
+		fastBallot = 0;
+		if (window == 0) {
+			startPulling(slot(0));
+		}
+	}
+
+	// Nobody reads from a process that stopped proposing, so it would only learn the decision from its forwarders
+	private void startPulling(Slot s) {
+		if (dissemination.pulls() && !s.decided && !s.pulling) {
+			s.pulling = true;
+			env.schedule(PULL_MS, new PullTickMsg(epoch, s.index));
+		}
+	}
+
+	private void handlePullTick(Slot s) {
+		if (s.decided) {
+			s.pulling = false;
+			return;
+		}
+		int peer = random.nextInt(N - 1);
+		send(peer >= id - 1 ? peer + 1 : peer, new PullMsg(epoch, s.index)); // a crashed one leaves it to the next tick
+		env.schedule(PULL_MS, new PullTickMsg(epoch, s.index));
+	}
+
+	private void handleSubmit(String command) {
+		if (batcher == null) {
+			pending.add(Value.of(command));
+			fillWindow();
+			return;
+		}
+		if (batcher.isEmpty()) {
+			env.schedule(batcher.maxDelayMs(), new BatchFlushMsg(batcher.generation()));
+		}
+		if (batcher.add(command)) {
+			flushBatch(CommandBatcher.FlushReason.SIZE);
+		}
+	}
+
+	private void handleBatchFlush(int generation) {
+		if (generation == batcher.generation() && !batcher.isEmpty()) {
+			flushBatch(CommandBatcher.FlushReason.TIME);
+		}
+	}
+
+	private void flushBatch(CommandBatcher.FlushReason reason) {
+		pending.add(batcher.flush(reason));
+		fillWindow();
+	}
+
+	// Keep up to window slots of our own commands in flight while leading
+	private void fillWindow() {
+		while (leading && inFlight < window && !pending.isEmpty()) {
+			nextSlot = Math.max(nextSlot, highestSlot + 1);
+			Slot s = slot(nextSlot++);
+			s.command = pending.poll();
+			inFlight++;
+			propose(s, s.command);
+		}
+	}
+
+
+	private void propose(Slot s, Value v) {
+		if (s.decided)
+			return;
+
+		s.proposal = v;
+		// Our read quorum of fastBallot also covers this slot, and nothing was imposed here before it
+		boolean fast = fastBallot > Math.max(s.ballot, s.competing) && s.index >= fastFrom
+				&& fastBallot >= Math.max(s.readballot, s.imposeballot);
+		if (fast) {
+			s.ballot = fastBallot;
+		} else {
+			if (votesLocally) {
+				// Stay above what we promised or accepted here ourselves
+				s.competing = Math.max(s.competing, Math.max(s.readballot, s.imposeballot));
+			}
+			s.ballot += N;
+			if (s.ballot <= s.competing) {
+				// Smallest ballot of our own residue class above the competitor, instead of a round per abort
+				s.ballot += ((s.competing - s.ballot) / N + 1) * N;
+			}
+		}
+		track(s);
+		s.states.clear();
+		s.free = 0;
+		s.wide = s.aborted && leading; // a leader that lost a ballot makes sure the next one reaches everybody
+
+		if (window == 0) {
+			env.log("Process {} proposes message: {}", id, v);
+		}
+
+		s.phaseStart = env.nowNanos();
+		s.aborted = false;
+		stats.ballots++;
+		if (fast) {
+			s.ackResponses.clear();
+			stats.fastImposes++;
+			imposeLocally(s);
+			sendPhase(s, new ImposeMsg(epoch, s.index, s.ballot, s.proposal), true);
+		} else {
+			if (votesLocally) {
+				s.readballot = s.ballot;
+			}
+			sendPhase(s, new ReadMsg(epoch, s.index, s.ballot), false);
+		}
+	}
+
+	// A read or impose of s: to every peer, or in thrifty mode to a majority first. The impose goes to the
+	// peers of the read quorum, which promised the ballot
+	private void sendPhase(Slot s, Object msg, boolean impose) {
+		if (!thrifty || s.wide) {
+			broadcast(msg);
+			return;
+		}
+		if (isSilentMode) {
+			return;
+		}
+		int sent = 0;
+		if (impose && s.states.size() >= N / 2) {
+			for (int i = 0; i < N; i++) {
+				if (i != id - 1 && s.states.contains(i)) {
+					env.send(i, msg);
+					sent++;
+				}
+			}
+		} else {
+			chooseMajority();
+			for (int peer : majority) {
+				env.send(peer, msg);
+			}
+			sent = majority.length;
+		}
+		stats.sent(msg, sent);
+		crashIfAfter(msg);
+		env.schedule(widenAfterMs(), new WidenMsg(epoch, s.index, s.ballot, impose));
+	}
+
+	// The phase of ballot b on s has no quorum after the timeout: send it on to every peer that has not answered
+	private void handleWiden(Slot s, int b, boolean impose) {
+		if (s.decided || b != s.ballot || s.aborted) {
+			return;
+		}
+		QuorumTracker answered = impose ? s.ackResponses : s.states;
+		if (answered.size() >= N / 2 || isSilentMode) {
+			return; // the phase is over
+		}
+		Object msg = impose ? new ImposeMsg(epoch, s.index, s.ballot, s.proposal) : new ReadMsg(epoch, s.index, s.ballot);
+		int penaltyUs = (int) Math.min(Integer.MAX_VALUE, widenAfterMs() * 1000);
+		int sent = 0;
+		for (int i = 0; i < N; i++) {
+			if (i != id - 1 && !answered.contains(i)) {
+				// Slow or crashed as far as we can tell, until it answers
+				responseUs[i] = Math.max(responseUs[i], penaltyUs);
+				env.send(i, msg);
+				sent++;
+			}
+		}
+		reselect = true;
+		stats.widened++;
+		stats.sent(msg, sent);
+		crashIfAfter(msg);
+	}
+
+	private long widenAfterMs() {
+		long timeout = rtt.phaseTimeoutNanos();
+		return timeout < 0 ? FIRST_WIDEN_MS : Math.max(1, (timeout + 999_999) / 1_000_000);
+	}
+
+	// Response time of peer from to the current phase of s, before its quorum was complete
+	private void observe(Slot s, int from) {
+		int sample = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (env.nowNanos() - s.phaseStart) / 1000));
+		int old = responseUs[from];
+		responseUs[from] = old == 0 ? sample : (int) ((7L * old + sample) / 8);
+		reselect = true;
+	}
+
+	// The N/2 peers that answered fastest; ties, and peers never measured, go by distance from us on the ring
+	// so that proposers do not all pick the same acceptors
+	private void chooseMajority() {
+		if (!reselect) {
+			return;
+		}
+		int k = 0;
+		for (int i = 0; i < N; i++) {
+			if (i != id - 1) {
+				byResponse[k++] = (long) responseUs[i] << 32 | (i - (id - 1) + N) % N;
+			}
+		}
+		Arrays.sort(byResponse);
+		for (int j = 0; j < majority.length; j++) {
+			majority[j] = (int) (((byResponse[j] & 0xFFFFFFFFL) + id - 1) % N);
+		}
+		reselect = false;
+	}
+
+	// Our own vote of the impose phase, false if we promised a higher ballot here in the meantime
+	private boolean imposeLocally(Slot s) {
+		if (s.readballot > s.ballot || s.imposeballot > s.ballot) {
+			return false;
+		}
+		s.imposeballot = s.ballot;
+		s.estimate = s.proposal;
+		return true;
+	}
+
+	private void handleAbort(Slot s, int b, int highest) {
+		s.competing = Math.max(s.competing, highest);
+		if (b == fastBallot) {
+			fastBallot = 0; // another process read a higher ballot, back to two phases
+		}
+		if (b == s.ballot && !s.decided) {
+			s.states.clear();
+			s.ackResponses.clear();
+			if (s.aborted) {
+				return; // another acceptor's abort of a ballot we already gave up
+			}
+			s.aborted = true;
+			stats.abortedBallots++;
+			if(!hold)
+				retry(s);
+		}
+	}
+
+	// Next ballot after an abort, right away or after a random backoff
+	private void retry(Slot s) {
+		if (!backoff.enabled()) {
+			propose(s, s.proposal);
+			return;
+		}
+		s.retries++;
+		if (!leading && backoff.givesUp(s.retries)) {
+			hold = true; // the leader will take it from here
+			startPulling(s);
+			return;
+		}
+		stats.retries++;
+		env.schedule(backoff.delayMs(s.retries, jitter), new RetryMsg(epoch, s.index, s.ballot));
+	}
+
+	private void handleRetry(Slot s, int b) {
+		if (b == s.ballot && !s.decided && !hold) {
+			propose(s, s.proposal);
+		}
+	}
+
+
+	private void handleReadRequest(Slot s, int b, int from) {
+		if (s.decided) {
+			repair(s, from);
+			return;
+		}
+
+		if (s.readballot > b || s.imposeballot > b) {
+			send(from, new AbortMsg(epoch, s.index, b, Math.max(s.readballot, s.imposeballot)));
+		} else {
+			s.readballot = b;
+			send(from, new GatherMsg(epoch, s.index, b, s.imposeballot, s.estimate, promiseRange(b)));
+
+
+			if (isDebugMode) { // Output more info
+				env.log("Process {} accepts ReadMsg and sends GatherMsg: new readballot={}, imposeballot={}, estimate={}",
+			 id, s.readballot, s.imposeballot, s.estimate);
+			}
+		}
+	}
+
+
+	// Log mode: a read of ballot b also covers every slot not used here yet, unless a higher ballot holds them.
+	// Returns the first slot covered, or -1
+	private int promiseRange(int b) {
+		if (window == 0 || b < rangeBallot) {
+			return -1;
+		}
+		if (rangeFrom != Integer.MAX_VALUE) {
+			for (int i = rangeFrom; i <= highestSlot; i++) {
+				slot(i); // the slots already passed keep the promise they had
+			}
+		}
+		rangeBallot = b;
+		rangeFrom = highestSlot + 1;
+		if (fastBallot != 0 && b > fastBallot) {
+			fastBallot = 0; // our own imposes would be refused from here on
+		}
+		return rangeFrom;
+	}
+
+	private void handleReadResponse(Slot s, int b, int estBallot, Value est, int free, int from) {
+		if (s.decided || s.imposeballot == s.ballot || b != s.ballot || from < 0) {
+			return; // not proposing, or a late answer to an earlier ballot
+		}
+
+		if (!s.states.add(from, estBallot, est)) {
+			return; // this process already answered
+		}
+		if (thrifty && s.states.size() <= N / 2) {
+			observe(s, from);
+		}
+		s.free = free < 0 || s.free < 0 ? -1 : Math.max(s.free, free);
+		if (s.states.size() == N / 2) {
+			// Adopt the estimate imposed with the highest ballot in the quorum, if any
+			if (s.states.maxBallot() > 0 && s.states.maxEstimate() != null) {
+				s.proposal = s.states.maxEstimate();
+			}
+			if (votesLocally) {
+				if (s.imposeballot > Math.max(s.states.maxBallot(), 0) && s.estimate != null) {
+					s.proposal = s.estimate;
+				}
+				if (!imposeLocally(s)) {
+					handleAbort(s, s.ballot, s.readballot);
+					return;
+				}
+			}
+
+			s.ackResponses.clear();
+			long now = env.nowNanos();
+			rtt.sample(now - s.phaseStart);
+			stats.readNanos += now - s.phaseStart;
+			stats.reads++;
+			s.phaseStart = now;
+
+			//log.info("Process {} moves to write phase with proposal: {}", id, proposal);
+
+			if (fastPath && leading && s.free >= 0) {
+				openFastPath(s);
+			}
+			sendPhase(s, new ImposeMsg(epoch, s.index, s.ballot, s.proposal), true);
+		}
+	}
+
+
+	// The read quorum of s also promised its ballot for every slot from s.free on, where none of the acceptors
+	// in it had anything: later slots from there can be imposed with that ballot directly
+	private void openFastPath(Slot s) {
+		int own = promiseRange(s.ballot);
+		if (own >= 0) {
+			fastBallot = s.ballot;
+			fastFrom = Math.max(s.free, own);
+		}
+	}
+
+	private void handleImposeRequest(Slot s, int b, Value v, int from) {
+		if (s.decided) {
+			repair(s, from);
+			return;
+		}
+		if (s.readballot > b || s.imposeballot > b) {
+			//log.info("abort impose readballot = {}, imposeballot = {}, recieved ballot = {} ", readballot, imposeballot, b );
+			send(from, new AbortMsg(epoch, s.index, b, Math.max(s.readballot, s.imposeballot)));
+		} else {
+			//log.info("process {} accept impose readballot = {}, imposeballot = {}, recieved ballot = {} ", id , readballot, imposeballot, b );
+			s.estimate = v;
+			s.imposeballot = b;
+			send(from, new AckMsg(epoch, s.index, b));
+
+
+			if (isDebugMode) { // Output more info
+				env.log("Process {} accepts ImposMsg and sends AckMsg: new readballot={}, imposeballot={}, estimate={}",
+						id, s.readballot, s.imposeballot, s.estimate);
+			}
+
+		}
+	}
+
+	private void handleAckResponse(Slot s, int b, int from) {
+		if (s.decided || b != s.ballot || from < 0)
+			return;
+
+		//log.info("Process {} recieves ack message, with ballot:{} total ack received: {}", id, b, ackResponses.size());
+		if (thrifty && s.ackResponses.size() < N / 2 && !s.ackResponses.contains(from)) {
+			observe(s, from);
+		}
+		if (s.ackResponses.add(from, b, null) && s.ackResponses.size() == N / 2) {
+			long now = env.nowNanos();
+			rtt.sample(now - s.phaseStart);
+			stats.imposeNanos += now - s.phaseStart;
+			stats.imposes++;
+			if (window == 0) {
+				env.reportDelay();
+			}
+			Value v = s.proposal;
+			s.decide(v);
+			s.msgballot = b;
+			s.decider = id;
+			release(s);
+			//log.info("Process {} decides on message: {}  with ballot: {}", id, proposal ,b);
+			disseminate(s, id, b, -1, true);
+			onDecided(s);
+		}
+	}
+
+
+	// decider is the id of the process that reached the ack quorum, from the index of the sender
+	private void handleDecide(Slot s, Value v, int decider, int b, int from) {
+		if(b>s.msgballot) {
+			s.estimate = v;
+			s.msgballot = b;
+			s.decider = decider;
+		}
+		else{
+			//log.info("Process {} msgballot: {} from process {} with ballot {}", id,msgballot, from, b );
+			return; // this decision already went through us
+		}
+		boolean first = !s.decided;
+		s.decide(v);
+		release(s);
+		//log.info("Process {} final decision: {} from process {} with ballot {}", id, v, from, b );
+		disseminate(s, decider, b, from, first);
+
+		if (first) {
+			onDecided(s);
+		}
+	}
+
+	// Passes a decision on according to the dissemination strategy; from is -1 at the decider. Under TREE a process
+	// feeds its children whoever told it first, its parent or a repair, so a crashed parent only delays the subtree
+	private void disseminate(Slot s, int decider, int b, int from, boolean first) {
+		DecideMsg msg = new DecideMsg(epoch, s.index, s.value, decider, b);
+		switch (dissemination) {
+		case ALL_TO_ALL:
+			broadcast(msg);
+			break;
+		case LEADER_ONLY:
+			if (from < 0) {
+				broadcast(msg);
+			}
+			break;
+		case TREE:
+			// Ranks are positions relative to the decider, rank r feeds ranks r*fanout+1 .. r*fanout+fanout
+			int root = decider - 1;
+			int rank = (id - 1 - root + N) % N;
+			for (int child = rank * fanout + 1; child <= rank * fanout + fanout && child < N; child++) {
+				send((root + child) % N, msg);
+			}
+			break;
+		case GOSSIP:
+			if (!first) {
+				return;
+			}
+			for (int k = 0; k < fanout; k++) {
+				int peer = random.nextInt(N - 1);
+				send(peer >= id - 1 ? peer + 1 : peer, msg); // any process but us
+			}
+			break;
+		}
+	}
+
+	// A proposer is still working on a slot we know is decided, or a process pulled it: tell it directly.
+	// The original decider stays in the message so that the tree it travels on does not change
+	private void repair(Slot s, int from) {
+		if (from >= 0) {
+			send(from, new DecideMsg(epoch, s.index, s.value, s.decider, s.msgballot));
+		}
+	}
+
+	// Log mode bookkeeping once a slot is decided locally
+	private void onDecided(Slot s) {
+		if (window == 0) {
+			stats.decideNanos += env.nowNanos() - launchedAt;
+			stats.decisions++;
+			env.countDecision();
+			return;
+		}
+		if (s.command != null) {
+			inFlight--;
+			if (!s.value.equals(s.command)) {
+				pending.addFirst(s.command); // slot was taken by another proposer's value, retry our command
+			}
+			s.command = null;
+		}
+		deliver();
+		fillWindow();
+	}
+
+	// Hand the contiguous decided prefix of the log to the subscriber, in slot order
+	private void deliver() {
+		Slot s;
+		while ((s = slots.get(delivered)) != null && s.decided) {
+			env.deliver(delivered, s.value, batcher != null ? Batch.decode(s.value) : Collections.singletonList(s.value.toString()));
+			delivered++;
+		}
+	}
+
+
+	private boolean determineIfWillCrash() {
+		if (alpha <= 0 || faults.nextDouble() >= alpha) {
+			return false;
+		}
+		// Process will crash
+		isSilentMode = true;
+		env.log("Process {} has crashed prob = {}.", id, alpha);
+		return true;
+	}
+
+	// A crashed process sends nothing, not even the rest of a broadcast loop it was in
+	private void send(int to, Object msg) {
+		if (!isSilentMode) {
+			env.send(to, msg);
+			stats.sent(msg, 1);
+			crashIfAfter(msg);
+		}
+	}
+
+	private void broadcast(Object msg) {
+		if (!isSilentMode) {
+			env.broadcast(msg);
+			stats.sent(msg, N - 1);
+			crashIfAfter(msg);
+		}
+	}
+
+	private void crashIfAfter(Object sent) {
+		if (isFaultProneMode && crashAfter.after(sent)) {
+			isSilentMode = true;
+			env.log("Process {} has crashed after sending {}.", id, sent.getClass().getSimpleName());
+		}
+	}
+
+	// Restart a process
+	private void handleRestart(int newEpoch) {
+		epoch = newEpoch;
+		stats.clear();
+
+		for (Slot s : slots.values()) {
+			release(s);
+		}
+		slots.clear();
+		pending.clear();
+		if (batcher != null) {
+			batcher.clear();
+		}
+		leading = false;
+		nextSlot = 0;
+		highestSlot = -1;
+		inFlight = 0;
+		delivered = 0;
+		rangeBallot = 0;
+		rangeFrom = Integer.MAX_VALUE;
+		fastBallot = 0;
+		if (thrifty) {
+			Arrays.fill(responseUs, 0); // other processes may crash this run
+			reselect = true;
+		}
+		hold = false;
+		isFaultProneMode = false;
+		isSilentMode = false;
+		if (elector != null) {
+			elector.stop();
+			leaderIndex = -1;
+		}
+
+//		log.info("Process {} has restarted.", id);
+	}
+
+	// Returns true if process is fault-prone
+	public boolean checkIfFaultProne() {
+		return isFaultProneMode;
+	}
+
+	// from is the sender's index, or -1 when it is not one of the processes
+	public void receive(Object message, int from) {
+		if (message instanceof RestartMsg) {
+			handleRestart(((RestartMsg) message).epoch);
+			return;
+		}
+		if (message instanceof EpochMsg && ((EpochMsg) message).epoch < epoch) {
+			return; // left over from an earlier run
+		}
+		if (isSilentMode) {
+			return;
+		}
+		if (message instanceof LaunchMsg) {
+			// Before the crash draw, so that the draw on LaunchMsg belongs to the run too
+			random = new SplittableRandom(((LaunchMsg) message).seed);
+			faults = random.split();
+			jitter = new SplittableRandom(((LaunchMsg) message).seed ^ 0x5DEECE66DL);
+		}
+		if (isFaultProneMode && determineIfWillCrash()) {
+			return; // Process crashes
+		}
+		// Process does not crash, continues as per normal
+		stats.received(message);
+
+		if (message instanceof LaunchMsg) {
+			handleLaunch();
+		} else if (message instanceof CrashMsg) {
+			isFaultProneMode = true;
+		} else if (message instanceof LeaderSelectionMsg) {
+			startLeadership();
+		} else if (message instanceof HoldMsg) {
+			handleHold();
+		} else if (message instanceof HeartbeatMsg) {
+			if (elector != null) {
+				handleHeartbeat(from);
+			}
+		} else if (message instanceof HeartbeatTickMsg) {
+			if (elector != null) {
+				handleHeartbeatTick(((HeartbeatTickMsg) message).generation);
+			}
+		} else if (message instanceof SubmitMsg) {
+			handleSubmit(((SubmitMsg) message).command);
+		} else if (message instanceof BatchFlushMsg) {
+			handleBatchFlush(((BatchFlushMsg) message).generation);
+		} else if (message instanceof ReadMsg) {
+			ReadMsg msg = (ReadMsg) message;
+			handleReadRequest(slot(msg.slot), msg.ballot, from);
+		} else if (message instanceof GatherMsg) {
+			GatherMsg msg = (GatherMsg) message;
+			handleReadResponse(slot(msg.slot), msg.ballot, msg.imposeballot, msg.estimate, msg.free, from);
+		} else if (message instanceof ImposeMsg) {
+			ImposeMsg msg = (ImposeMsg) message;
+			handleImposeRequest(slot(msg.slot), msg.ballot, msg.proposal, from);
+		} else if (message instanceof AckMsg) {
+			AckMsg msg = (AckMsg) message;
+			handleAckResponse(slot(msg.slot), msg.ballot, from);
+		} else if (message instanceof AbortMsg) {
+			AbortMsg msg = (AbortMsg) message;
+			handleAbort(slot(msg.slot), msg.ballot, msg.highest);
+		} else if (message instanceof DecideMsg) {
+			DecideMsg msg = (DecideMsg) message;
+			handleDecide(slot(msg.slot), msg.proposal, msg.id, msg.b, from);
+		} else if (message instanceof RetryMsg) {
+			RetryMsg msg = (RetryMsg) message;
+			handleRetry(slot(msg.slot), msg.ballot);
+		} else if (message instanceof PullMsg) {
+			Slot s = slot(((PullMsg) message).slot);
+			if (s.decided) {
+				repair(s, from);
+			}
+		} else if (message instanceof PullTickMsg) {
+			handlePullTick(slot(((PullTickMsg) message).slot));
+		} else if (message instanceof WidenMsg) {
+			WidenMsg msg = (WidenMsg) message;
+			handleWiden(slot(msg.slot), msg.ballot, msg.impose);
+		}
+	}
+}
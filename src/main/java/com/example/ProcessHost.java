@@ -0,0 +1,39 @@
+package com.example;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+
+import java.time.Duration;
+
+/**
+ * Child JVM of MultiJvmMain: hosts every process whose index is hostIndex modulo
+ * the number of hosts and reports their decisions to the coordinator's collector.
+ *
+ * Usage: ProcessHost hostIndex hosts coordinatorPort N f TLE ALPHA dissemination fanout heartbeat suspect adaptive
+ * crashAfter backoff thrifty dispatcher
+ */
+public class ProcessHost {
+
+	public static void main(String[] args) throws Exception {
+		int hostIndex = Integer.parseInt(args[0]);
+		int hosts = Integer.parseInt(args[1]);
+		int coordinatorPort = Integer.parseInt(args[2]);
+		SweepConfig.Combination c = new SweepConfig.Combination(0, Integer.parseInt(args[3]), Integer.parseInt(args[4]),
+				Integer.parseInt(args[5]), Double.parseDouble(args[6]), Dissemination.parse(args[7]),
+				Integer.parseInt(args[8]), Integer.parseInt(args[9]), Integer.parseInt(args[10]),
+				Boolean.parseBoolean(args[11]), CrashPoint.parse(args[12]), Backoff.parse(args[13]),
+				Boolean.parseBoolean(args[14]), args[15]);
+
+		ActorSystem system = ActorSystem.create(MultiJvmMain.SYSTEM_NAME,
+				MultiJvmMain.remoteConfig(coordinatorPort + 1 + hostIndex));
+		ActorRef collector = system
+				.actorSelection(MultiJvmMain.address(coordinatorPort) + "/user/" + MultiJvmMain.COLLECTOR)
+				.resolveOne(Duration.ofSeconds(30)).toCompletableFuture().get();
+
+		for (int i = hostIndex; i < c.n; i += hosts) {
+			system.actorOf(Process.createActor(i + 1, c, collector), "" + i);
+		}
+		system.log().info("Host " + hostIndex + " started its processes of " + c);
+		system.getWhenTerminated().toCompletableFuture().get(); // until the coordinator stops this JVM
+	}
+}
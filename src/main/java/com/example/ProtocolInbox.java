@@ -0,0 +1,112 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/**
+ * Delivery order of ProtocolMailbox, independent of Akka so that the Simulator
+ * can use it too: DecideMsg first, then AbortMsg and AckMsg, then everything
+ * else in arrival order. A ReadMsg or ImposeMsg is dropped when a request of a
+ * higher ballot for the same epoch and slot from the same proposer was queued
+ * after it. The subclass says how to get the message and the sender of an item.
+ * Not thread-safe.
+ */
+abstract class ProtocolInbox<E> {
+	// Highest ballot of the epoch and slot a proposer last sent a queued request for
+	private static final class Request {
+		int epoch;
+		int slot;
+		int ballot;
+		int queued; // requests of this proposer in the queue, the entry goes when it drops to 0
+	}
+
+	private final ArrayDeque<E> decisions = new ArrayDeque<>();
+	private final ArrayDeque<E> replies = new ArrayDeque<>(); // AbortMsg and AckMsg
+	private final ArrayDeque<E> others = new ArrayDeque<>();
+	private final HashMap<Object, Request> requests = new HashMap<>(); // by proposer, only those with requests queued
+
+	protected abstract Object message(E item);
+
+	protected abstract Object sender(E item);
+
+	void add(E item) {
+		Object msg = message(item);
+		if (msg instanceof DecideMsg) {
+			decisions.add(item);
+		} else if (msg instanceof AbortMsg || msg instanceof AckMsg) {
+			replies.add(item);
+		} else {
+			if (msg instanceof ReadMsg) {
+				ReadMsg m = (ReadMsg) msg;
+				queued(sender(item), m.epoch, m.slot, m.ballot);
+			} else if (msg instanceof ImposeMsg) {
+				ImposeMsg m = (ImposeMsg) msg;
+				queued(sender(item), m.epoch, m.slot, m.ballot);
+			}
+			others.add(item);
+		}
+	}
+
+	private void queued(Object proposer, int epoch, int slot, int ballot) {
+		Request r = requests.get(proposer);
+		if (r == null) {
+			r = new Request();
+			requests.put(proposer, r);
+		}
+		if (r.queued == 0 || r.epoch != epoch || r.slot != slot || ballot > r.ballot) {
+			r.epoch = epoch;
+			r.slot = slot;
+			r.ballot = ballot;
+		}
+		r.queued++;
+	}
+
+	// Next item to deliver, null if there is none
+	E poll() {
+		E item = decisions.poll();
+		if (item == null) {
+			item = replies.poll();
+		}
+		while (item == null && !others.isEmpty()) {
+			item = others.poll();
+			Object msg = message(item);
+			if (msg instanceof ReadMsg) {
+				ReadMsg m = (ReadMsg) msg;
+				item = superseded(sender(item), m.epoch, m.slot, m.ballot) ? null : item;
+			} else if (msg instanceof ImposeMsg) {
+				ImposeMsg m = (ImposeMsg) msg;
+				item = superseded(sender(item), m.epoch, m.slot, m.ballot) ? null : item;
+			}
+		}
+		return item;
+	}
+
+	// Takes a request off its proposer's entry, true if the proposer moved on to a higher ballot of the same
+	// epoch and slot since
+	private boolean superseded(Object proposer, int epoch, int slot, int ballot) {
+		Request r = requests.get(proposer);
+		if (r == null) {
+			return false;
+		}
+		if (--r.queued == 0) {
+			requests.remove(proposer);
+		}
+		return r.epoch == epoch && r.slot == slot && r.ballot > ballot;
+	}
+
+	// Queued items, including requests that will turn out superseded
+	int size() {
+		return decisions.size() + replies.size() + others.size();
+	}
+
+	boolean isEmpty() {
+		return decisions.isEmpty() && replies.isEmpty() && others.isEmpty();
+	}
+
+	void clear() {
+		decisions.clear();
+		replies.clear();
+		others.clear();
+		requests.clear();
+	}
+}
@@ -0,0 +1,77 @@
+package com.example;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import akka.dispatch.UnboundedMessageQueueSemantics;
+import com.typesafe.config.Config;
+import scala.Option;
+
+/**
+ * Mailbox of the "priority" dispatcher profile (application.conf). Under contention
+ * a mailbox fills up with reads and imposes of ballots that are already lost, and
+ * the DecideMsg that ends the round waits behind them. Here DecideMsg is taken
+ * first, then AbortMsg and AckMsg, then everything else in arrival order.
+ *
+ * A ReadMsg or ImposeMsg is also dropped when a request of a higher ballot for
+ * the same epoch and slot from the same proposer is queued behind it: a proposer only
+ * moves to a higher ballot once it gave up on the lower one, so it would ignore
+ * the answer. Requests are never dropped for anything the receiver knows, since
+ * the proposer may be waiting for the AbortMsg they would get. The order itself
+ * is ProtocolInbox, which the Simulator runs for the same profile.
+ */
+public class ProtocolMailbox implements MailboxType, ProducesMessageQueue<ProtocolMailbox.ProtocolQueue> {
+
+	public ProtocolMailbox(ActorSystem.Settings settings, Config config) {
+	}
+
+	@Override
+	public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+		return new ProtocolQueue();
+	}
+
+	public static class ProtocolQueue implements MessageQueue, UnboundedMessageQueueSemantics {
+		private final ProtocolInbox<Envelope> inbox = new ProtocolInbox<Envelope>() {
+			@Override
+			protected Object message(Envelope handle) {
+				return handle.message();
+			}
+
+			@Override
+			protected Object sender(Envelope handle) {
+				return handle.sender();
+			}
+		};
+
+		@Override
+		public synchronized void enqueue(ActorRef receiver, Envelope handle) {
+			inbox.add(handle);
+		}
+
+		@Override
+		public synchronized Envelope dequeue() {
+			return inbox.poll();
+		}
+
+		@Override
+		public synchronized int numberOfMessages() {
+			return inbox.size();
+		}
+
+		@Override
+		public synchronized boolean hasMessages() {
+			return !inbox.isEmpty();
+		}
+
+		@Override
+		public synchronized void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+			Envelope handle;
+			while ((handle = dequeue()) != null) {
+				deadLetters.enqueue(owner, handle);
+			}
+		}
+	}
+}
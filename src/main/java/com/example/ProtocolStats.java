@@ -0,0 +1,157 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Phase timings and message counters of one process during one run. Owned by
+ * its ProcessCore and only touched from the thread running it; the harness
+ * gets a copy after the run (ProtocolStatsMsg) and adds the copies up.
+ */
+public class ProtocolStats {
+	public static final String[] TYPES = { "Read", "Gather", "Impose", "Ack", "Abort", "Decide", "Hold", "Pull" };
+	static final int ABORT = 4;
+
+	public final long[] sent = new long[TYPES.length];
+	public final long[] received = new long[TYPES.length];
+	public long ballots = 0; // proposals started
+	public long fastImposes = 0; // of those, started with the impose phase by a leader holding a read quorum
+	public long abortedBallots = 0; // proposals that ended on an AbortMsg
+	public long retries = 0; // ballots put off by Backoff after an abort
+	public long widened = 0; // thrifty phases that went on to the rest of the peers after a timeout
+	// Phase durations in ns, with the number of phases summed
+	public long readNanos = 0; // propose -> read quorum, the impose goes out right then
+	public long reads = 0;
+	public long imposeNanos = 0; // impose sent -> ack quorum
+	public long imposes = 0;
+	public long decideNanos = 0; // LaunchMsg -> decision known here, by own ack quorum or DecideMsg
+	public long decisions = 0;
+
+	// Index of a protocol message in TYPES, -1 for anything else
+	static int type(Object msg) {
+		if (msg instanceof ReadMsg) {
+			return 0;
+		} else if (msg instanceof GatherMsg) {
+			return 1;
+		} else if (msg instanceof ImposeMsg) {
+			return 2;
+		} else if (msg instanceof AckMsg) {
+			return 3;
+		} else if (msg instanceof AbortMsg) {
+			return ABORT;
+		} else if (msg instanceof DecideMsg) {
+			return 5;
+		} else if (msg instanceof HoldMsg) {
+			return 6;
+		} else if (msg instanceof PullMsg) {
+			return 7;
+		}
+		return -1;
+	}
+
+	void sent(Object msg, int count) {
+		int t = type(msg);
+		if (t >= 0) {
+			sent[t] += count;
+		}
+	}
+
+	void received(Object msg) {
+		int t = type(msg);
+		if (t >= 0) {
+			received[t]++;
+		}
+	}
+
+	public void add(ProtocolStats o) {
+		for (int t = 0; t < TYPES.length; t++) {
+			sent[t] += o.sent[t];
+			received[t] += o.received[t];
+		}
+		ballots += o.ballots;
+		fastImposes += o.fastImposes;
+		abortedBallots += o.abortedBallots;
+		retries += o.retries;
+		widened += o.widened;
+		readNanos += o.readNanos;
+		reads += o.reads;
+		imposeNanos += o.imposeNanos;
+		imposes += o.imposes;
+		decideNanos += o.decideNanos;
+		decisions += o.decisions;
+	}
+
+	public ProtocolStats copy() {
+		ProtocolStats c = new ProtocolStats();
+		c.add(this);
+		return c;
+	}
+
+	void clear() {
+		Arrays.fill(sent, 0);
+		Arrays.fill(received, 0);
+		ballots = fastImposes = abortedBallots = retries = widened = 0;
+		readNanos = reads = imposeNanos = imposes = decideNanos = decisions = 0;
+	}
+
+	private static double averageMs(long nanos, long count) {
+		return count == 0 ? 0 : nanos / 1e6 / count;
+	}
+
+	public double readMs() {
+		return averageMs(readNanos, reads);
+	}
+
+	public double imposeMs() {
+		return averageMs(imposeNanos, imposes);
+	}
+
+	public double decideMs() {
+		return averageMs(decideNanos, decisions);
+	}
+
+	public double abortsPerBallot() {
+		return ballots == 0 ? 0 : (double) abortedBallots / ballots;
+	}
+
+	// Column names matching csvValues
+	public static String csvHeader() {
+		StringBuilder sb = new StringBuilder(
+				"read_ms,impose_ms,decide_ms,ballots,aborted_ballots,aborts_per_ballot,retries,widened");
+		for (String t : TYPES) {
+			sb.append(',').append(t.toLowerCase()).append("_sent,").append(t.toLowerCase()).append("_received");
+		}
+		return sb.toString();
+	}
+
+	public String csvValues() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(readMs()).append(',').append(imposeMs()).append(',').append(decideMs()).append(',').append(ballots)
+				.append(',').append(abortedBallots).append(',').append(abortsPerBallot()).append(',').append(retries)
+				.append(',').append(widened);
+		for (int t = 0; t < TYPES.length; t++) {
+			sb.append(',').append(sent[t]).append(',').append(received[t]);
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("read %.3f ms, impose %.3f ms, decided after %.3f ms, %d ballots, %.2f aborts per ballot",
+				readMs(), imposeMs(), decideMs(), ballots, abortsPerBallot()));
+		if (fastImposes > 0) {
+			sb.append(String.format(", %d without read phase", fastImposes));
+		}
+		if (retries > 0) {
+			sb.append(String.format(", %d retries after backoff", retries));
+		}
+		if (widened > 0) {
+			sb.append(String.format(", %d phases widened", widened));
+		}
+		sb.append(", sent/received");
+		for (int t = 0; t < TYPES.length; t++) {
+			sb.append(t == 0 ? " " : ", ").append(TYPES[t]).append(' ').append(sent[t]).append('/').append(received[t]);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,7 @@
+package com.example;
+
+/**
+ * Asks a process for a snapshot of its protocol counters for the current run (replied with ProtocolStats)
+ */
+public class ProtocolStatsMsg {
+}
@@ -0,0 +1,16 @@
+package com.example;
+
+/**
+ * Asks a peer for the decision of slot; a peer that has decided answers with its
+ * DecideMsg, any other ignores it
+ */
+public class PullMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int slot;
+
+	public PullMsg(int epoch, int slot) {
+		super(epoch);
+		this.slot = slot;
+	}
+}
@@ -0,0 +1,15 @@
+package com.example;
+
+/**
+ * Self-scheduled every PULL_MS while a process that stopped proposing on slot has not learnt its decision
+ */
+public class PullTickMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int slot;
+
+	public PullTickMsg(int epoch, int slot) {
+		super(epoch);
+		this.slot = slot;
+	}
+}
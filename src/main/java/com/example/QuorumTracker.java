@@ -0,0 +1,129 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Responses of one quorum phase keyed by dense process index, with a running
+ * maximum of the reported impose ballots. Who answered is kept in a small
+ * open-addressing set while few have answered, and in a bitset of N bits once
+ * that is smaller: most ballots are aborted after a handful of answers, so at
+ * large N a tracker costs little more than the answers it holds. Nothing is
+ * allocated per response until the set has to grow.
+ */
+final class QuorumTracker {
+	private static final int INITIAL_CAPACITY = 16; // slots of the sparse set, a power of two
+
+	private final int n;
+	private int[] sparse; // index + 1 per entry, 0 = free; null once dense
+	private long[] dense; // one bit per process index; null while sparse
+	private int size = 0;
+	private int maxBallot = Integer.MIN_VALUE;
+	private Value maxEstimate = null;
+
+	QuorumTracker(int n) {
+		this.n = n;
+		if (denseBytes(n) <= 4L * INITIAL_CAPACITY) {
+			this.dense = new long[(n + 63) >>> 6];
+		} else {
+			this.sparse = new int[INITIAL_CAPACITY];
+		}
+	}
+
+	// Records the response of process index, returns false if it already answered
+	boolean add(int index, int ballot, Value estimate) {
+		if (dense != null) {
+			long bit = 1L << index;
+			int word = index >>> 6;
+			if ((dense[word] & bit) != 0) {
+				return false;
+			}
+			dense[word] |= bit;
+		} else {
+			int slot = find(index);
+			if (sparse[slot] != 0) {
+				return false;
+			}
+			sparse[slot] = index + 1;
+			if (2 * (size + 1) > sparse.length) {
+				grow();
+			}
+		}
+		size++;
+		if (ballot > maxBallot) {
+			maxBallot = ballot;
+			maxEstimate = estimate;
+		}
+		return true;
+	}
+
+	boolean contains(int index) {
+		if (dense != null) {
+			return (dense[index >>> 6] & (1L << index)) != 0;
+		}
+		return sparse[find(index)] != 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	// Highest ballot reported so far and the estimate that came with it
+	int maxBallot() {
+		return maxBallot;
+	}
+
+	Value maxEstimate() {
+		return maxEstimate;
+	}
+
+	// Heap taken by the membership, the rest of the tracker is a few fields
+	long bytes() {
+		return dense != null ? 8L * dense.length : 4L * sparse.length;
+	}
+
+	void clear() {
+		if (dense != null) {
+			Arrays.fill(dense, 0);
+		} else {
+			Arrays.fill(sparse, 0);
+		}
+		size = 0;
+		maxBallot = Integer.MIN_VALUE;
+		maxEstimate = null; // do not keep old values reachable
+	}
+
+	// Slot of index in the sparse set, or the free slot where it belongs (linear probing)
+	private int find(int index) {
+		int mask = sparse.length - 1;
+		int slot = (index * 0x9E3779B9) >>> 16 & mask;
+		while (sparse[slot] != 0 && sparse[slot] != index + 1) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	// Doubles the set, or switches to the bitset once that takes less room
+	private void grow() {
+		int[] old = sparse;
+		if (denseBytes(n) <= 8L * old.length) {
+			dense = new long[(n + 63) >>> 6];
+			sparse = null;
+			for (int entry : old) {
+				if (entry != 0) {
+					dense[(entry - 1) >>> 6] |= 1L << (entry - 1);
+				}
+			}
+			return;
+		}
+		sparse = new int[old.length * 2];
+		for (int entry : old) {
+			if (entry != 0) {
+				sparse[find(entry - 1)] = entry;
+			}
+		}
+	}
+
+	private static long denseBytes(int n) {
+		return 8L * ((n + 63) >>> 6);
+	}
+}
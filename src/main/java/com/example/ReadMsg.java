@@ -1,9 +1,22 @@
 package com.example;
 
-public class ReadMsg {
+public class ReadMsg extends EpochMsg {
+    private static final long serialVersionUID = 1L;
+
+    public final int slot;
     public final int ballot;
     
     public ReadMsg(int ballot) {
+        this(0, ballot);
+    }
+
+    public ReadMsg(int slot, int ballot) {
+        this(0, slot, ballot);
+    }
+
+    public ReadMsg(int epoch, int slot, int ballot) {
+        super(epoch);
+        this.slot = slot;
         this.ballot = ballot;
     }
-}
\ No newline at end of file
+}
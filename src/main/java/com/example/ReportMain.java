@@ -0,0 +1,327 @@
+package com.example;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Import XChart classes
+import org.knowm.xchart.*;
+import org.knowm.xchart.BitmapEncoder;
+import org.knowm.xchart.BitmapEncoder.BitmapFormat;
+
+/**
+ * Turns a ResultsStore file into the charts and CSV files, separately from the
+ * sweep: the store is read one line at a time and only the aggregates of each
+ * combination are kept. Main and MultiJvmMain call it once their sweep is over;
+ * it can also be run on its own, e.g. on the store of a sweep that was cut short.
+ *
+ * Options: --results (default ./results.jsonl) and --suffix, appended to the
+ * names of the output files (e.g. _multijvm).
+ */
+public class ReportMain {
+
+    public static void main(String[] args) throws IOException {
+        String results = "./results.jsonl";
+        String suffix = "";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--results") && i + 1 < args.length) {
+                results = args[++i];
+            } else if (args[i].equals("--suffix") && i + 1 < args.length) {
+                suffix = args[++i];
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        generate(Paths.get(results), suffix);
+    }
+
+    public static void generate(Path results, String suffix) throws IOException {
+        List<ResultData> resultDataList = read(results);
+        generateCharts(resultDataList, suffix);
+        exportLatencies(resultDataList, "./latency_results" + suffix + ".csv");
+        exportPhases(resultDataList, "./phase_results" + suffix + ".csv");
+    }
+
+    // Runs of one combination as they come out of the store
+    private static class Aggregate {
+        final int n;
+        final int f;
+        final int tle;
+        final double alpha;
+        final String dissemination;
+        final int fanout;
+        final int heartbeat;
+        final int suspect;
+        final boolean adaptive;
+        final String crashAfter;
+        final String dispatcher;
+        final String backoff;
+        final boolean thrifty;
+        double totalDelay = 0; // ms, over the runs that reached a decision
+        int completedRuns = 0;
+        final LatencyHistogram firstDecision = new LatencyHistogram();
+        final LatencyHistogram processDecision = new LatencyHistogram();
+        final List<ProtocolStats> protocolStats = new ArrayList<>();
+
+        Aggregate(Map<String, Object> record) {
+            n = number(record, "n").intValue();
+            f = number(record, "f").intValue();
+            tle = number(record, "tle").intValue();
+            alpha = number(record, "alpha").doubleValue();
+            // Stores written before these were fields only have them in the combination key
+            Map<String, String> key = keyFields((String) record.get("combination"));
+            dissemination = text(record, key, "dissemination", Dissemination.ALL_TO_ALL.name());
+            fanout = Integer.parseInt(text(record, key, "fanout", "0"));
+            heartbeat = Integer.parseInt(text(record, key, "heartbeat", "0"));
+            suspect = Integer.parseInt(text(record, key, "suspect", "0"));
+            adaptive = Boolean.parseBoolean(text(record, key, "adaptive", "false"));
+            crashAfter = text(record, key, "crashAfter", CrashPoint.NONE.name());
+            dispatcher = (String) record.get("dispatcher");
+            backoff = record.containsKey("backoff") ? (String) record.get("backoff") : Backoff.OFF.toString();
+            thrifty = Boolean.TRUE.equals(record.get("thrifty"));
+        }
+
+        void add(Map<String, Object> record) {
+            long delay = number(record, "delayNs").longValue();
+            if (delay >= 0) {
+                totalDelay += delay / 1e6;
+                completedRuns++;
+                firstDecision.record(delay);
+            }
+            long[] processDelays = (long[]) record.get("processDelaysNs");
+            if (processDelays != null) {
+                for (long d : processDelays) {
+                    if (d >= 0) {
+                        processDecision.record(d);
+                    }
+                }
+            }
+            protocolStats.add(record.containsKey("ballots") ? stats(record) : null);
+        }
+
+        ResultData result() {
+            double averageDelay = completedRuns == 0 ? 0 : totalDelay / completedRuns;
+            return new ResultData(n, f, tle, alpha, dissemination, fanout, heartbeat, suspect, adaptive, crashAfter,
+                    dispatcher, backoff, thrifty, averageDelay, firstDecision, processDecision,
+                    protocolStats.toArray(new ProtocolStats[0]));
+        }
+    }
+
+    // One aggregate per combination, in the order they first appear; a record of run 1 starts its combination over
+    static List<ResultData> read(Path results) throws IOException {
+        Map<String, Aggregate> aggregates = new LinkedHashMap<>();
+        ResultsStore.forEach(results, record -> {
+            String key = (String) record.get("combination");
+            if (number(record, "run").intValue() == 1 || !aggregates.containsKey(key)) {
+                aggregates.remove(key);
+                aggregates.put(key, new Aggregate(record));
+            }
+            aggregates.get(key).add(record);
+        });
+        List<ResultData> resultDataList = new ArrayList<>();
+        for (Aggregate a : aggregates.values()) {
+            resultDataList.add(a.result());
+        }
+        return resultDataList;
+    }
+
+    private static ProtocolStats stats(Map<String, Object> record) {
+        ProtocolStats stats = new ProtocolStats();
+        long[] sent = (long[]) record.get("sent");
+        long[] received = (long[]) record.get("received");
+        System.arraycopy(sent, 0, stats.sent, 0, Math.min(sent.length, stats.sent.length));
+        System.arraycopy(received, 0, stats.received, 0, Math.min(received.length, stats.received.length));
+        stats.ballots = number(record, "ballots").longValue();
+        stats.abortedBallots = number(record, "abortedBallots").longValue();
+        stats.retries = number(record, "retries").longValue();
+        stats.widened = number(record, "widened").longValue();
+        stats.readNanos = number(record, "readNanos").longValue();
+        stats.reads = number(record, "reads").longValue();
+        stats.imposeNanos = number(record, "imposeNanos").longValue();
+        stats.imposes = number(record, "imposes").longValue();
+        stats.decideNanos = number(record, "decideNanos").longValue();
+        stats.decisions = number(record, "decisions").longValue();
+        return stats;
+    }
+
+    private static Number number(Map<String, Object> record, String name) {
+        Object value = record.get(name);
+        return value instanceof Number ? (Number) value : 0;
+    }
+
+    private static String text(Map<String, Object> record, Map<String, String> key, String name, String otherwise) {
+        Object value = record.get(name);
+        return value != null ? value.toString() : key.getOrDefault(name, otherwise);
+    }
+
+    // name=value pairs of a ResultsStore.key
+    static Map<String, String> keyFields(String key) {
+        Map<String, String> fields = new HashMap<>();
+        for (String part : key.split(",")) {
+            int eq = part.indexOf('=');
+            if (eq > 0) {
+                fields.put(part.substring(0, eq), part.substring(eq + 1));
+            }
+        }
+        return fields;
+    }
+
+    static class ResultData {
+        public final int n;
+        public final int f;
+        public final int tle;
+        public final double alpha;
+        public final String dissemination;
+        public final int fanout;
+        public final int heartbeat; // 0 = leader elected by the harness
+        public final int suspect;
+        public final boolean adaptive;
+        public final String crashAfter;
+        public final String dispatcher; // profile the processes ran on
+        public final String backoff; // base:max:retries or off
+        public final boolean thrifty; // quorum phases sent to a majority first
+        public final double averageDelay;
+        public final LatencyHistogram firstDecision;
+        public final LatencyHistogram processDecision;
+        public final ProtocolStats[] protocolStats; // per run
+
+        public ResultData(int n, int f, int tle, double alpha, String dissemination, int fanout, int heartbeat,
+                int suspect, boolean adaptive, String crashAfter, String dispatcher, String backoff, boolean thrifty,
+                double averageDelay, LatencyHistogram firstDecision, LatencyHistogram processDecision,
+                ProtocolStats[] protocolStats) {
+            this.n = n;
+            this.f = f;
+            this.tle = tle;
+            this.alpha = alpha;
+            this.dissemination = dissemination;
+            this.fanout = fanout;
+            this.heartbeat = heartbeat;
+            this.suspect = suspect;
+            this.adaptive = adaptive;
+            this.crashAfter = crashAfter;
+            this.dispatcher = dispatcher;
+            this.backoff = backoff;
+            this.thrifty = thrifty;
+            this.averageDelay = averageDelay;
+            this.firstDecision = firstDecision;
+            this.processDecision = processDecision;
+            this.protocolStats = protocolStats;
+        }
+
+        // Columns naming the combination, as in ResultsStore.key without the seed
+        static final String CSV_HEADER = "n,f,tle,alpha,dissemination,fanout,heartbeat,suspect,adaptive,crash_after,"
+                + "dispatcher,backoff,thrifty";
+
+        String csvValues() {
+            return n + "," + f + "," + tle + "," + alpha + "," + dissemination + "," + fanout + "," + heartbeat + ","
+                    + suspect + "," + adaptive + "," + crashAfter + "," + dispatcher + "," + backoff + "," + thrifty;
+        }
+    }
+	
+    static void generateCharts(List<ResultData> resultDataList, String suffix) {
+        Map<Integer, List<Double>> nData = new HashMap<>();
+        Map<Double, List<Double>> alphaData = new HashMap<>();
+        Map<Integer, List<Double>> tleData = new HashMap<>();
+
+        for (ResultData data : resultDataList) {
+            nData.computeIfAbsent(data.n, k -> new ArrayList<>()).add(data.averageDelay);
+            alphaData.computeIfAbsent(data.alpha, k -> new ArrayList<>()).add(data.averageDelay);
+            tleData.computeIfAbsent(data.tle, k -> new ArrayList<>()).add(data.averageDelay);
+        }
+
+        Map<Integer, Double> nAverages = computeAverages(nData);
+        Map<Double, Double> alphaAverages = computeAverages(alphaData);
+        Map<Integer, Double> tleAverages = computeAverages(tleData);
+
+        createAndSaveChart(nAverages, "N" + suffix, "Average Consensus Delay vs N", "N", "Average Delay (ms)");
+        createAndSaveChart(alphaAverages, "ALPHA" + suffix, "Average Consensus Delay vs ALPHA", "ALPHA", "Average Delay (ms)");
+        createAndSaveChart(tleAverages, "TLE" + suffix, "Average Consensus Delay vs LEADER_ELECTION_TIMEOUT", "LEADER_ELECTION_TIMEOUT (ms)", "Average Delay (ms)");
+    }
+
+    // One line per combination: the average next to the latency percentiles, all in ms
+    static void exportLatencies(List<ResultData> resultDataList, String path) throws IOException {
+        double[] quantiles = {0.5, 0.9, 0.99, 0.999};
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println(ResultData.CSV_HEADER + ",average_delay,"
+                    + "first_p50,first_p90,first_p99,first_p999,first_max,"
+                    + "decide_p50,decide_p90,decide_p99,decide_p999,decide_max");
+            for (ResultData data : resultDataList) {
+                StringBuilder line = new StringBuilder(data.csvValues());
+                line.append(',').append(data.averageDelay);
+                for (LatencyHistogram h : new LatencyHistogram[] { data.firstDecision, data.processDecision }) {
+                    for (double q : quantiles) {
+                        line.append(',').append(h.percentile(q) / 1e6);
+                    }
+                    line.append(',').append(h.max() / 1e6);
+                }
+                out.println(line);
+            }
+        }
+    }
+
+    // One line per run: phase durations, ballots and aborts, and messages of each type, summed over the processes
+    static void exportPhases(List<ResultData> resultDataList, String path) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println(ResultData.CSV_HEADER + ",run," + ProtocolStats.csvHeader());
+            for (ResultData data : resultDataList) {
+                for (int run = 0; run < data.protocolStats.length; run++) {
+                    if (data.protocolStats[run] != null) {
+                        out.println(data.csvValues() + "," + (run + 1) + "," + data.protocolStats[run].csvValues());
+                    }
+                }
+            }
+        }
+    }
+
+    private static <T> Map<T, Double> computeAverages(Map<T, List<Double>> data) {
+        Map<T, Double> averages = new HashMap<>();
+        for (Map.Entry<T, List<Double>> entry : data.entrySet()) {
+            T key = entry.getKey();
+            List<Double> values = entry.getValue();
+            double sum = values.stream().mapToDouble(Double::doubleValue).sum();
+            averages.put(key, sum / values.size());
+        }
+        return averages;
+    }
+
+    private static <T> void createAndSaveChart(Map<T, Double> data, String parameter, String title, String xAxisTitle, String yAxisTitle) {
+        List<T> sortedKeys = new ArrayList<>(data.keySet());
+        sortedKeys.sort((a, b) -> {
+            if (a instanceof Number && b instanceof Number) {
+                return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            }
+            return 0;
+        });
+
+        List<Number> xValues = new ArrayList<>();
+        List<Double> yValues = new ArrayList<>();
+        for (T key : sortedKeys) {
+            if (key instanceof Number) {
+                xValues.add((Number) key);
+            }
+            yValues.add(data.get(key));
+        }
+
+        XYChart chart = new XYChartBuilder().width(800).height(600).title(title).xAxisTitle(xAxisTitle).yAxisTitle(yAxisTitle).build();
+        chart.getStyler().setDefaultSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line);
+        chart.getStyler().setMarkerSize(8);
+
+        double[] xData = xValues.stream().mapToDouble(Number::doubleValue).toArray();
+        double[] yData = yValues.stream().mapToDouble(Double::doubleValue).toArray();
+
+        chart.addSeries(parameter, xData, yData);
+
+        try {
+            BitmapEncoder.saveBitmapWithDPI(chart, "./" + parameter + "_chart", BitmapFormat.PNG, 300);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,5 +1,17 @@
 package com.example;
 
+/**
+ * Clears a process for the run with the given epoch; the process answers the
+ * sender with a RestartedMsg once it has
+ */
 public class RestartMsg {
+	public final int epoch;
 
+	public RestartMsg() {
+		this(0);
+	}
+
+	public RestartMsg(int epoch) {
+		this.epoch = epoch;
+	}
 }
@@ -0,0 +1,15 @@
+package com.example;
+
+/**
+ * Reply to RestartMsg: the process dropped its state and from now on ignores
+ * messages of epochs before this one
+ */
+public class RestartedMsg {
+	public final int id;
+	public final int epoch;
+
+	public RestartedMsg(int id, int epoch) {
+		this.id = id;
+		this.epoch = epoch;
+	}
+}
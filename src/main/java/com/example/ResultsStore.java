@@ -0,0 +1,223 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Append-only store of sweep results: one JSON object per line and per run,
+ * written as soon as the run is over, with the raw delays of every process and
+ * the run's protocol counters. A restarted sweep reads it back and skips the
+ * combinations that have all their runs; ReportMain streams it into the charts
+ * and CSV files. A combination that was cut short is run again from its first
+ * run, and a record of run 1 starts the combination over for the readers.
+ */
+public class ResultsStore {
+	private final Path path;
+
+	public ResultsStore(Path path) throws IOException {
+		this.path = path;
+		// A sweep killed in the middle of a write leaves half a line, which readers skip
+		if (Files.exists(path) && Files.size(path) > 0 && !endsWithNewline(path)) {
+			write("\n");
+		}
+	}
+
+	public Path path() {
+		return path;
+	}
+
+	// The key and the parameters of the combination, the outcome of run (0-based) and its counters
+	public void append(SweepConfig.Combination c, long sweepSeed, int runs, int run, long runSeed,
+			Experiment experiment) throws IOException {
+		StringBuilder line = new StringBuilder("{");
+		field(line, "combination", key(c, sweepSeed));
+		field(line, "run", run + 1);
+		field(line, "runs", runs);
+		field(line, "n", c.n);
+		field(line, "f", c.f);
+		field(line, "tle", c.tle);
+		field(line, "alpha", c.alpha);
+		field(line, "dissemination", c.dissemination.name());
+		field(line, "fanout", c.fanout);
+		field(line, "heartbeat", c.heartbeat);
+		field(line, "suspect", c.suspect);
+		field(line, "adaptive", c.adaptive);
+		field(line, "crashAfter", c.crashAfter.name());
+		field(line, "dispatcher", c.dispatcher);
+		field(line, "backoff", c.backoff.toString());
+		field(line, "thrifty", c.thrifty);
+		field(line, "runSeed", runSeed);
+		field(line, "delayNs", experiment.consensusDelays()[run]);
+		field(line, "processDelaysNs", experiment.processDelays());
+		field(line, "electionTimeoutNs", experiment.effectiveTimeouts()[run]);
+		field(line, "elections", experiment.elections()[run]);
+		ProtocolStats stats = experiment.protocolStats()[run];
+		if (stats != null) {
+			field(line, "sent", stats.sent);
+			field(line, "received", stats.received);
+			field(line, "ballots", stats.ballots);
+			field(line, "abortedBallots", stats.abortedBallots);
+			field(line, "retries", stats.retries);
+			field(line, "widened", stats.widened);
+			field(line, "readNanos", stats.readNanos);
+			field(line, "reads", stats.reads);
+			field(line, "imposeNanos", stats.imposeNanos);
+			field(line, "imposes", stats.imposes);
+			field(line, "decideNanos", stats.decideNanos);
+			field(line, "decisions", stats.decisions);
+		}
+		line.setCharAt(line.length() - 1, '}');
+		write(line.append('\n').toString());
+	}
+
+	// Every parameter that changes the outcome, so a store can hold several sweeps
+	public static String key(SweepConfig.Combination c, long sweepSeed) {
+		return String.format("n=%d,f=%d,tle=%d,alpha=%s,dissemination=%s,fanout=%d,heartbeat=%d,suspect=%d,"
+				+ "adaptive=%b,crashAfter=%s,backoff=%s,thrifty=%b,dispatcher=%s,seed=%d", c.n, c.f, c.tle, c.alpha,
+				c.dissemination, c.fanout, c.heartbeat, c.suspect, c.adaptive, c.crashAfter, c.backoff, c.thrifty,
+				c.dispatcher, sweepSeed);
+	}
+
+	// The combinations of the sweep that do not have all their runs in the store yet
+	public List<SweepConfig.Combination> pending(List<SweepConfig.Combination> combinations, long sweepSeed, int runs)
+			throws IOException {
+		Map<String, Integer> stored = new HashMap<>();
+		forEach(path, record -> {
+			int run = ((Number) record.get("run")).intValue();
+			String key = (String) record.get("combination");
+			stored.put(key, run == 1 ? 1 : stored.getOrDefault(key, 0) + 1);
+		});
+		List<SweepConfig.Combination> pending = new ArrayList<>();
+		for (SweepConfig.Combination c : combinations) {
+			if (stored.getOrDefault(key(c, sweepSeed), 0) < runs) {
+				pending.add(c);
+			}
+		}
+		return pending;
+	}
+
+	// Reads the store one line at a time; numbers come back as Long or Double, arrays as long[]
+	public static void forEach(Path path, Consumer<Map<String, Object>> consumer) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				Map<String, Object> record = parse(line);
+				if (record != null) {
+					consumer.accept(record);
+				}
+			}
+		}
+	}
+
+	private synchronized void write(String s) throws IOException {
+		try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND)) {
+			out.write(s);
+		}
+	}
+
+	private static boolean endsWithNewline(Path path) throws IOException {
+		try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+			ByteBuffer last = ByteBuffer.allocate(1);
+			channel.position(channel.size() - 1).read(last);
+			return last.get(0) == '\n';
+		}
+	}
+
+	private static void field(StringBuilder line, String name, Object value) {
+		line.append('"').append(name).append("\":");
+		if (value instanceof String) {
+			line.append('"').append(((String) value).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+		} else if (value instanceof long[]) {
+			long[] values = (long[]) value;
+			line.append('[');
+			for (int i = 0; i < values.length; i++) {
+				line.append(i == 0 ? "" : ",").append(values[i]);
+			}
+			line.append(']');
+		} else {
+			line.append(value);
+		}
+		line.append(',');
+	}
+
+	// Flat objects as written by append, null for anything else (e.g. a torn last line)
+	static Map<String, Object> parse(String line) {
+		Map<String, Object> record = new HashMap<>();
+		int i = skipSpaces(line, 0);
+		if (i >= line.length() || line.charAt(i) != '{') {
+			return null;
+		}
+		try {
+			i = skipSpaces(line, i + 1);
+			while (line.charAt(i) != '}') {
+				int nameEnd = line.indexOf('"', i + 1);
+				String name = line.substring(i + 1, nameEnd);
+				i = skipSpaces(line, line.indexOf(':', nameEnd) + 1);
+				char c = line.charAt(i);
+				if (c == '"') {
+					StringBuilder s = new StringBuilder();
+					for (i++; line.charAt(i) != '"'; i++) {
+						s.append(line.charAt(i) == '\\' ? line.charAt(++i) : line.charAt(i));
+					}
+					record.put(name, s.toString());
+					i++;
+				} else if (c == '[') {
+					int end = line.indexOf(']', i);
+					String body = line.substring(i + 1, end).trim();
+					String[] parts = body.isEmpty() ? new String[0] : body.split(",");
+					long[] values = new long[parts.length];
+					for (int k = 0; k < parts.length; k++) {
+						values[k] = Long.parseLong(parts[k].trim());
+					}
+					record.put(name, values);
+					i = end + 1;
+				} else {
+					int end = i;
+					while (end < line.length() && line.charAt(end) != ',' && line.charAt(end) != '}') {
+						end++;
+					}
+					String token = line.substring(i, end).trim();
+					if (token.equals("true") || token.equals("false")) {
+						record.put(name, Boolean.valueOf(token));
+					} else if (token.indexOf('.') >= 0 || token.indexOf('e') >= 0 || token.indexOf('E') >= 0
+							|| token.equals("NaN") || token.endsWith("Infinity")) {
+						record.put(name, Double.valueOf(token));
+					} else {
+						record.put(name, Long.valueOf(token));
+					}
+					i = end;
+				}
+				i = skipSpaces(line, i);
+				if (line.charAt(i) == ',') {
+					i = skipSpaces(line, i + 1);
+				}
+			}
+		} catch (RuntimeException e) {
+			return null;
+		}
+		return record.containsKey("combination") && record.containsKey("run") ? record : null;
+	}
+
+	private static int skipSpaces(String s, int i) {
+		while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+}
@@ -0,0 +1,17 @@
+package com.example;
+
+/**
+ * Self-scheduled by Backoff: propose again on slot if ballot is still the latest one there
+ */
+public class RetryMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int slot;
+	public final int ballot;
+
+	public RetryMsg(int epoch, int slot, int ballot) {
+		super(epoch);
+		this.slot = slot;
+		this.ballot = ballot;
+	}
+}
@@ -0,0 +1,33 @@
+package com.example;
+
+/**
+ * Smoothed round-trip time of the quorum phases, kept the way TCP keeps its
+ * RTO (RFC 6298): an EWMA of the samples plus an EWMA of their deviation. The
+ * election timeout allows a few uncontended rounds of a read and an impose phase.
+ */
+final class RttEstimator {
+	static final int ROUNDS = 3; // rounds a proposer gets before a leader is elected
+
+	private double srtt = -1; // nanoseconds, < 0 until the first sample
+	private double rttvar = 0;
+
+	void sample(long rttNanos) {
+		if (srtt < 0) {
+			srtt = rttNanos;
+			rttvar = rttNanos / 2.0;
+		} else {
+			rttvar = 0.75 * rttvar + 0.25 * Math.abs(srtt - rttNanos);
+			srtt = 0.875 * srtt + 0.125 * rttNanos;
+		}
+	}
+
+	// Retransmission timeout of one phase (srtt + 4 rttvar), -1 until a phase has completed
+	long phaseTimeoutNanos() {
+		return srtt < 0 ? -1 : (long) (srtt + 4 * rttvar);
+	}
+
+	// -1 until a phase has completed
+	long electionTimeoutNanos() {
+		return srtt < 0 ? -1 : (long) (ROUNDS * 2 * (srtt + 4 * rttvar));
+	}
+}
@@ -0,0 +1,80 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * Runs the Main sweep on the discrete-event Simulator: no real sleeps, and the
+ * same seed always gives the same delays (the printed fingerprint must match).
+ * Takes the same options as Main plus --seed; combinations run in parallel
+ * without changing the result since each one has its own seeded simulator.
+ */
+public class SimMain {
+	private static final int RUN_TIMEOUT = 30000;
+	private static final String ONE_LINE = "--------------------------------------------------";
+
+	private static class Result {
+		final double[] delays;
+		long decideMessages = 0;
+		double effectiveTimeout = 0; // adaptive mode, summed over runs
+		int elections = 0;
+		final ProtocolStats stats = new ProtocolStats(); // over all runs
+
+		Result(int runs) {
+			delays = new double[runs];
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		SweepConfig config = SweepConfig.parse(args);
+		long wallStart = System.nanoTime();
+
+		List<Result> results = new SweepRunner(config.parallelism).run(config.combinations(), c -> {
+			// Each combination gets its own stream so results do not depend on sweep order; strategies
+			// of the same combination share it and see the same latencies
+			Simulator sim = new Simulator(c, c.seed(config.seed));
+			Result result = new Result(config.runs);
+			for (int exp = 0; exp < config.runs; exp++) {
+				result.delays[exp] = sim.runOnce(c.f, c.tle, RUN_TIMEOUT);
+				result.decideMessages += sim.decideMessages();
+				result.effectiveTimeout += sim.effectiveTimeoutMs();
+				result.elections += sim.elections();
+				result.stats.add(sim.protocolStats());
+			}
+			return result;
+		});
+
+		long fingerprint = config.seed;
+		List<SweepConfig.Combination> combinations = config.combinations();
+		for (int i = 0; i < combinations.size(); i++) {
+			double total = 0;
+			int completed = 0;
+			LatencyHistogram histogram = new LatencyHistogram();
+			for (double delay : results.get(i).delays) {
+				fingerprint = fingerprint * 31 + Double.doubleToLongBits(delay);
+				if (delay >= 0) {
+					total += delay;
+					completed++;
+					histogram.record((long) (delay * 1e6));
+				}
+			}
+			System.out.printf("%s: average consensus delay %.3f ms (%d/%d runs decided), %.1f decide messages per decision%n",
+					combinations.get(i), completed == 0 ? 0 : total / completed, completed, config.runs,
+					completed == 0 ? 0 : results.get(i).decideMessages / (double) completed);
+			System.out.println("    delay " + histogram.summary());
+			System.out.println("    " + results.get(i).stats);
+			System.out.printf("    per decision: %.1f read phases, %.1f aborts, %.1f retries%n",
+					completed == 0 ? 0 : results.get(i).stats.ballots / (double) completed,
+					completed == 0 ? 0 : results.get(i).stats.abortedBallots / (double) completed,
+					completed == 0 ? 0 : results.get(i).stats.retries / (double) completed);
+			if (combinations.get(i).adaptive) {
+				System.out.printf("    election timeout %.3f ms, %.1f elections per run%n",
+						results.get(i).effectiveTimeout / config.runs, results.get(i).elections / (double) config.runs);
+			}
+		}
+
+		System.out.println(ONE_LINE);
+		System.out.printf("Simulated sweep in %.2f s, seed=%d, fingerprint=%016x%n",
+				(System.nanoTime() - wallStart) / 1e9, config.seed, fingerprint);
+		System.out.println(ONE_LINE);
+	}
+}
@@ -0,0 +1,429 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Discrete-event simulation of N ProcessCore instances on a virtual clock.
+ * Messages are events in a priority queue ordered by delivery time; every link
+ * latency and every random choice comes from the seed, so a run is reproducible.
+ * Each process handles one message at a time and is busy for serviceTime per
+ * message, like an actor draining its mailbox. Under the "priority" dispatcher
+ * the mailbox is ProtocolMailbox's ProtocolInbox. Time is kept in microseconds.
+ */
+public class Simulator {
+	public static final long DEFAULT_MIN_LATENCY_US = 50;
+	public static final long DEFAULT_MAX_LATENCY_US = 500;
+	public static final long DEFAULT_SERVICE_TIME_US = 10;
+
+	private static class Event implements Comparable<Event> {
+		final long time;
+		final long seq; // insertion order breaks ties between events at the same time
+		final int to;
+		final int from;
+		final Object msg;
+
+		Event(long time, long seq, int to, int from, Object msg) {
+			this.time = time;
+			this.seq = seq;
+			this.to = to;
+			this.from = from;
+			this.msg = msg;
+		}
+
+		@Override
+		public int compareTo(Event o) {
+			if (time != o.time) {
+				return Long.compare(time, o.time);
+			}
+			return Long.compare(seq, o.seq);
+		}
+	}
+
+	// ProtocolInbox over events, a request's proposer is the sending process
+	private static class PriorityInbox extends ProtocolInbox<Event> {
+		@Override
+		protected Object message(Event e) {
+			return e.msg;
+		}
+
+		@Override
+		protected Object sender(Event e) {
+			return e.from;
+		}
+	}
+
+	private static final Object DONE = new Object(); // end of a process's service time
+	private static final Object ELECT = new Object(); // adaptive election timeout expired, handled by the harness
+
+	private final int n;
+	private final boolean electsLeader;
+	private final boolean adaptive;
+	private final long minLatency;
+	private final long maxLatency;
+	private final long serviceTime;
+	private final List<ArrayDeque<Event>> mailboxes;
+	private final List<PriorityInbox> inboxes; // instead of mailboxes under the priority dispatcher, null otherwise
+	private final boolean[] busy;
+	private final Random random;
+	private final ProcessCore[] cores;
+	private final PriorityQueue<Event> queue = new PriorityQueue<>();
+	private long now = 0;
+	private long seq = 0;
+	private int epoch = 0;
+	private long events = 0;
+
+	// Per run measurements
+	private long firstDecisionTime = -1;
+	private int decisions = 0;
+	private long decideMessages = 0;
+	private long effectiveTimeout = -1; // adaptive mode: us waited before the first election
+	private int elections = 0;
+
+	// Log mode: what each process delivered, and when the leader delivered each command (by submission order)
+	private List<List<Value>> logs = null;
+	private long[] submitted;
+	private long[] committed;
+
+	public Simulator(int n, int f, int tle, double alpha, long seed) {
+		this(n, f, tle, alpha, seed, DEFAULT_MIN_LATENCY_US, DEFAULT_MAX_LATENCY_US, DEFAULT_SERVICE_TIME_US);
+	}
+
+	public Simulator(int n, int f, int tle, double alpha, long seed, long minLatencyUs, long maxLatencyUs,
+			long serviceTimeUs) {
+		this(new SweepConfig.Combination(0, n, f, tle, alpha), seed, minLatencyUs, maxLatencyUs, serviceTimeUs);
+	}
+
+	public Simulator(SweepConfig.Combination c, long seed) {
+		this(c, seed, DEFAULT_MIN_LATENCY_US, DEFAULT_MAX_LATENCY_US, DEFAULT_SERVICE_TIME_US);
+	}
+
+	public Simulator(SweepConfig.Combination c, long seed, long minLatencyUs, long maxLatencyUs, long serviceTimeUs) {
+		this(c.n, c.electsLeader(), c.adaptive, c.dispatcher.equals(SweepConfig.Combination.PRIORITY_DISPATCHER), seed,
+				minLatencyUs, maxLatencyUs, serviceTimeUs);
+		for (int i = 0; i < n; i++) {
+			cores[i] = new ProcessCore(new SimEnv(i), i + 1, c);
+		}
+	}
+
+	// Replicated log mode (see runLog), window slots in flight per leader, commands proposed one by one
+	public Simulator(int n, int window, boolean fastPath, long seed) {
+		this(n, false, false, false, seed, DEFAULT_MIN_LATENCY_US, DEFAULT_MAX_LATENCY_US, DEFAULT_SERVICE_TIME_US);
+		this.logs = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			cores[i] = new ProcessCore(new SimEnv(i), i + 1, n, 0, 0, 0, window, 1, 0, fastPath);
+			logs.add(new ArrayList<>());
+		}
+	}
+
+	private Simulator(int n, boolean electsLeader, boolean adaptive, boolean priority, long seed, long minLatencyUs,
+			long maxLatencyUs, long serviceTimeUs) {
+		this.n = n;
+		this.electsLeader = electsLeader;
+		this.adaptive = adaptive;
+		this.minLatency = minLatencyUs;
+		this.maxLatency = maxLatencyUs;
+		this.serviceTime = serviceTimeUs;
+		this.mailboxes = new ArrayList<>(n);
+		this.inboxes = priority ? new ArrayList<>(n) : null;
+		this.busy = new boolean[n];
+		this.random = new Random(seed);
+		this.cores = new ProcessCore[n];
+		for (int i = 0; i < n; i++) {
+			mailboxes.add(new ArrayDeque<>());
+			if (priority) {
+				inboxes.add(new PriorityInbox());
+			}
+		}
+	}
+
+	/**
+	 * One experiment as in Main.runOnce, on virtual time: launch everybody, elect a
+	 * non fault-prone leader after tle ms (or let the heartbeat detector elect one
+	 * when the combination has it). In adaptive mode the first election waits for
+	 * the largest timeout the processes derived from their round trips, and every
+	 * election that does not bring a decision doubles the wait. The run goes on until the network is
+	 * quiet so that the whole decide traffic is counted (see decideMessages).
+	 * Returns the consensus delay in ms, or -1 if no majority decided within timeoutMs.
+	 */
+	public double runOnce(int f, int tle, long timeoutMs) {
+		restart();
+		firstDecisionTime = -1;
+		decisions = 0;
+		decideMessages = 0;
+		effectiveTimeout = -1;
+		elections = 0;
+		long start = now;
+
+		List<Integer> indexes = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			indexes.add(i);
+		}
+		Collections.shuffle(indexes, random);
+		List<Integer> faultyIndexes = indexes.subList(0, f);
+		for (int k : faultyIndexes) {
+			enqueue(start, k, -1, new CrashMsg(epoch, true));
+		}
+		for (int i = 0; i < n; i++) {
+			enqueue(start, i, -1, new LaunchMsg(epoch, random.nextLong()));
+		}
+		int leaderIndex = random.nextInt(n);
+		while (faultyIndexes.contains(leaderIndex)) {
+			leaderIndex = random.nextInt(n);
+		}
+		long electionWait = 0;
+		if (adaptive) {
+			long estimate = -1;
+			for (ProcessCore core : cores) {
+				estimate = Math.max(estimate, core.electionTimeoutNanos());
+			}
+			effectiveTimeout = estimate > 0 ? estimate / 1000 : tle * 1000L;
+			electionWait = effectiveTimeout;
+			enqueue(start + electionWait, -1, -1, ELECT);
+		} else if (!electsLeader) {
+			enqueue(start + tle * 1000L, leaderIndex, -1, new LeaderSelectionMsg(epoch, leaderIndex + 1));
+		}
+
+		long deadline = start + timeoutMs * 1000L;
+		while (!queue.isEmpty() && queue.peek().time <= deadline) {
+			Event e = queue.poll();
+			now = e.time;
+			if (e.msg == ELECT) {
+				if (decisions < n / 2) {
+					if (elections++ > 0) {
+						leaderIndex = random.nextInt(n);
+						while (faultyIndexes.contains(leaderIndex)) {
+							leaderIndex = random.nextInt(n);
+						}
+					}
+					enqueue(now, leaderIndex, -1, new LeaderSelectionMsg(epoch, leaderIndex + 1));
+					electionWait = Math.min(electionWait * 2, timeoutMs * 1000L);
+					enqueue(now + electionWait, -1, -1, ELECT);
+				}
+			} else {
+				handle(e);
+			}
+		}
+		if (decisions < n / 2) {
+			now = Math.max(now, deadline);
+			return -1;
+		}
+		return (firstDecisionTime - start) / 1000.0;
+	}
+
+	/**
+	 * Replicated log on virtual time: process 1 is elected and gets commands
+	 * cmd-0, cmd-1, ... one every intervalUs, and the run goes on until the network
+	 * is quiet. Returns the mean ms from submitting a command to the leader
+	 * delivering it, or -1 if some process did not deliver them all within timeoutMs.
+	 */
+	public double runLog(int commands, long intervalUs, long timeoutMs) {
+		startLog(commands);
+		elect(0, 0);
+		for (int i = 0; i < commands; i++) {
+			submit(0, i, i * intervalUs);
+		}
+		run(timeoutMs);
+		long total = 0;
+		for (int i = 0; i < commands; i++) {
+			if (committed[i] < 0) {
+				return -1;
+			}
+			total += committed[i] - submitted[i];
+		}
+		for (List<Value> log : logs) {
+			if (log.size() != commands) {
+				return -1;
+			}
+		}
+		return commands == 0 ? 0 : total / 1000.0 / commands;
+	}
+
+	// Log mode building blocks for scenarios of their own: a new run for up to commands commands
+	public void startLog(int commands) {
+		restart();
+		for (List<Value> log : logs) {
+			log.clear();
+		}
+		submitted = new long[commands];
+		committed = new long[commands];
+		Arrays.fill(committed, -1);
+	}
+
+	// Elects process index atUs after the start of the run
+	public void elect(int index, long atUs) {
+		enqueue(now + atUs, index, -1, new LeaderSelectionMsg(epoch, index + 1));
+	}
+
+	// Submits command cmd-command to process index atUs after the start of the run
+	public void submit(int index, int command, long atUs) {
+		submitted[command] = now + atUs;
+		enqueue(now + atUs, index, -1, new SubmitMsg("cmd-" + command));
+	}
+
+	// Handles events until the network is quiet or timeoutMs of virtual time passed
+	public void run(long timeoutMs) {
+		long deadline = now + timeoutMs * 1000L;
+		while (!queue.isEmpty() && queue.peek().time <= deadline) {
+			Event e = queue.poll();
+			now = e.time;
+			handle(e);
+		}
+	}
+
+	// Values delivered by process index in the last log run, in slot order
+	public List<Value> log(int index) {
+		return logs.get(index);
+	}
+
+	// Value process index knows slot was decided with, null if none
+	public Value decision(int index, int slot) {
+		return cores[index].decision(slot);
+	}
+
+	private void restart() {
+		queue.clear();
+		for (ArrayDeque<Event> mailbox : mailboxes) {
+			mailbox.clear();
+		}
+		if (inboxes != null) {
+			for (PriorityInbox inbox : inboxes) {
+				inbox.clear();
+			}
+		}
+		Arrays.fill(busy, false);
+		epoch++;
+		for (ProcessCore core : cores) {
+			core.receive(new RestartMsg(epoch), -1);
+		}
+	}
+
+	// A message joins its process's mailbox, a process that is done with one takes the next
+	private void handle(Event e) {
+		if (e.msg == DONE) {
+			busy[e.to] = false;
+		} else if (inboxes != null) {
+			inboxes.get(e.to).add(e);
+		} else {
+			mailboxes.get(e.to).add(e);
+		}
+		if (busy[e.to]) {
+			return;
+		}
+		// a priority inbox may drop every request it holds, so whether there is a next one shows on poll
+		Event next = inboxes != null ? inboxes.get(e.to).poll() : mailboxes.get(e.to).poll();
+		if (next != null) {
+			busy[e.to] = true;
+			enqueue(now + serviceTime, e.to, e.to, DONE);
+			events++;
+			cores[e.to].receive(next.msg, next.from);
+		}
+	}
+
+	// Adaptive mode: ms waited before the first election of the last run, -1 otherwise
+	public double effectiveTimeoutMs() {
+		return effectiveTimeout < 0 ? -1 : effectiveTimeout / 1000.0;
+	}
+
+	public int elections() {
+		return elections;
+	}
+
+	// DecideMsg sent during the last run
+	public long decideMessages() {
+		return decideMessages;
+	}
+
+	// Counters of the last run, summed over the processes
+	public ProtocolStats protocolStats() {
+		ProtocolStats total = new ProtocolStats();
+		for (ProcessCore core : cores) {
+			total.add(core.protocolStats());
+		}
+		return total;
+	}
+
+	public long events() {
+		return events;
+	}
+
+	private void enqueue(long time, int to, int from, Object msg) {
+		queue.add(new Event(time, seq++, to, from, msg));
+	}
+
+	private long latency() {
+		return minLatency + (long) (random.nextDouble() * (maxLatency - minLatency));
+	}
+
+	private class SimEnv implements ProcessCore.Env {
+		private final int index;
+
+		SimEnv(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public void send(int to, Object msg) {
+			enqueue(now + latency(), to, index, msg);
+			if (msg instanceof DecideMsg) {
+				decideMessages++;
+			}
+		}
+
+		@Override
+		public void broadcast(Object msg) {
+			for (int i = 0; i < n; i++) {
+				if (i != index) {
+					enqueue(now + latency(), i, index, msg);
+				}
+			}
+			if (msg instanceof DecideMsg) {
+				decideMessages += n - 1;
+			}
+		}
+
+		@Override
+		public void schedule(long delayMs, Object msg) {
+			enqueue(now + delayMs * 1000L, index, index, msg);
+		}
+
+		@Override
+		public long nowNanos() {
+			return now * 1000;
+		}
+
+		@Override
+		public void reportDelay() {
+			if (firstDecisionTime < 0) {
+				firstDecisionTime = now;
+			}
+		}
+
+		@Override
+		public void countDecision() {
+			decisions++;
+		}
+
+		@Override
+		public void deliver(int slot, Value value, List<String> commands) {
+			if (logs == null) {
+				return;
+			}
+			logs.get(index).add(value);
+			if (index == 0) {
+				for (String command : commands) {
+					committed[Integer.parseInt(command.substring(4))] = now;
+				}
+			}
+		}
+
+		@Override
+		public void log(String template, Object... args) {
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.example;
+
+/**
+ * Proposer and acceptor state of one consensus instance (one log slot)
+ */
+class Slot {
+	final int index;
+	int ballot;
+	int readballot = 0;
+	int imposeballot;
+	int msgballot = 0;
+	int decider = 0; // id of the process whose ack quorum decided, kept in repairs
+	int competing = 0; // highest ballot an acceptor reported in an AbortMsg
+	int free = 0; // log mode: first slot every counted read answer left unused, -1 once one could not promise
+	long phaseStart; // when our current read or impose phase was broadcast
+	boolean aborted = false; // our current ballot got an AbortMsg
+	boolean wide = false; // thrifty mode: our current ballot goes to every peer right away
+	int retries = 0; // ballots started after an abort, for Backoff
+	Value proposal = null;
+	Value estimate = null;
+	Value value = null; // decided value
+	boolean decided = false;
+	boolean pulling = false; // a PullTickMsg is scheduled for this slot
+	Value command = null; // our own queued command while this slot is in flight
+	QuorumTracker states = null; // read quorum, allocated once this process proposes here
+	QuorumTracker ackResponses = null;
+
+	Slot(int index, int id, int n) {
+		this.index = index;
+		this.ballot = id - n;
+		this.imposeballot = id - n;
+	}
+
+	void decide(Value v) {
+		decided = true;
+		value = v;
+	}
+}
@@ -0,0 +1,12 @@
+package com.example;
+
+/**
+ * Client command to be appended to the replicated log
+ */
+public class SubmitMsg {
+	public final String command;
+
+	public SubmitMsg(String command) {
+		this.command = command;
+	}
+}
@@ -0,0 +1,14 @@
+package com.example;
+
+import akka.actor.ActorRef;
+
+/**
+ * Registers an actor that receives the decided log as an ordered stream of LogEntryMsg
+ */
+public class SubscribeMsg {
+	public final ActorRef subscriber;
+
+	public SubscribeMsg(ActorRef subscriber) {
+		this.subscriber = subscriber;
+	}
+}
@@ -0,0 +1,222 @@
+package com.example;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Parameter grid of an experiment sweep. Values come from a properties file
+ * (--config sweep.properties) and/or the command line, which wins:
+ *
+ *   --tle 500,1000 --n 3,10,100 --f 1,4,49 --alpha 0,0.1,1 --runs 5 --parallelism 4
+ *   --dissemination all_to_all,tree,gossip,leader_only --fanout 4 --jvms 2 --port 25520
+ *   --heartbeat 50 --suspect 150 --adaptive true --seed 42 --crashAfter gather --backoff 1:64:8 --thrifty true
+ *   --dispatcher default,fork-join-1,fork-join-100,thread-pool,affinity,priority,pinned --results results.jsonl
+ *
+ * n and f are paired by position. Anything not given keeps the defaults below.
+ */
+public class SweepConfig {
+	public int[] tle = {500, 1000, 1500, 2000}; // leader election timeouts in ms
+	public int[] n = {3, 10, 100};
+	public int[] f = {1, 4, 49}; // Number of processes that may crash, one per n
+	public double[] alpha = {0, 0.1, 1};
+	public int runs = 5; // experiments per combination
+	public int parallelism = 1; // combinations running at the same time
+	public long seed = 42; // every fault, proposal and leader choice of the sweep follows from it
+	public Dissemination[] dissemination = {Dissemination.ALL_TO_ALL};
+	public int fanout = 4; // for TREE and GOSSIP dissemination
+	public int heartbeat = 0; // ms between leader heartbeats, 0 = the harness elects the leader after TLE
+	public int suspect = 150; // ms without heartbeat before a process is suspected
+	public boolean adaptive = false; // election timeout from the observed round trips, TLE is only the first guess
+	public CrashPoint crashAfter = CrashPoint.NONE; // fault-prone processes crash after sending this, besides ALPHA
+	public Backoff backoff = Backoff.OFF; // base:max:retries, wait of a proposer after an abort
+	public boolean thrifty = false; // reads and imposes go to a majority first, the other peers only on widening
+	public String[] dispatcher = {Combination.DEFAULT_DISPATCHER}; // profiles under consensus-dispatchers in application.conf
+	public String results = null; // ResultsStore file, null = the default of the main class
+	public int jvms = 2; // MultiJvmMain only: child JVMs the processes are spread over
+	public int port = 25520; // MultiJvmMain only: coordinator port, child k listens on port + 1 + k
+
+	public static class Combination {
+		public static final String DEFAULT_DISPATCHER = "default"; // akka.actor.default-dispatcher
+		public static final String PRIORITY_DISPATCHER = "priority"; // ProtocolMailbox, also in the Simulator
+
+		public final int index;
+		public final int n;
+		public final int f;
+		public final int tle;
+		public final double alpha;
+		public final Dissemination dissemination;
+		public final int fanout;
+		public final int heartbeat;
+		public final int suspect;
+		public final boolean adaptive;
+		public final CrashPoint crashAfter;
+		public final Backoff backoff;
+		public final boolean thrifty;
+		public final String dispatcher;
+
+		public Combination(int index, int n, int f, int tle, double alpha) {
+			this(index, n, f, tle, alpha, Dissemination.ALL_TO_ALL, 0, 0, 0, false, CrashPoint.NONE, Backoff.OFF, false,
+					DEFAULT_DISPATCHER);
+		}
+
+		public Combination(int index, int n, int f, int tle, double alpha, Dissemination dissemination, int fanout,
+				int heartbeat, int suspect, boolean adaptive, CrashPoint crashAfter, Backoff backoff, boolean thrifty,
+				String dispatcher) {
+			this.index = index;
+			this.n = n;
+			this.f = f;
+			this.tle = tle;
+			this.alpha = alpha;
+			this.dissemination = dissemination;
+			this.fanout = fanout;
+			this.heartbeat = heartbeat;
+			this.suspect = suspect;
+			this.adaptive = adaptive;
+			this.crashAfter = crashAfter;
+			this.backoff = backoff;
+			this.thrifty = thrifty;
+			this.dispatcher = dispatcher;
+		}
+
+		// Config path of the dispatcher profile, null for Akka's default dispatcher
+		public String dispatcherPath() {
+			return dispatcher.equals(DEFAULT_DISPATCHER) ? null : "consensus-dispatchers." + dispatcher;
+		}
+
+		// Seed of this combination's runs, independent of the sweep order; strategies of the same
+		// combination share it
+		public long seed(long sweepSeed) {
+			return sweepSeed * 31 + (tle * 1_000_003L + n * 997L + Double.hashCode(alpha));
+		}
+
+		// The leader comes from the heartbeat failure detector instead of LeaderSelectionMsg
+		public boolean electsLeader() {
+			return heartbeat > 0;
+		}
+
+		@Override
+		public String toString() {
+			String s = String.format("N=%d, f=%d, TLE=%d, ALPHA=%.1f, %s", n, f, tle, alpha, dissemination);
+			if (electsLeader()) {
+				s += String.format(", heartbeat=%d/%d ms", heartbeat, suspect);
+			}
+			if (crashAfter != CrashPoint.NONE) {
+				s += ", crash after " + crashAfter;
+			}
+			if (backoff.enabled()) {
+				s += ", backoff " + backoff;
+			}
+			if (thrifty) {
+				s += ", thrifty";
+			}
+			if (!dispatcher.equals(DEFAULT_DISPATCHER)) {
+				s += ", dispatcher " + dispatcher;
+			}
+			return adaptive ? s + ", adaptive TLE" : s;
+		}
+	}
+
+	public static SweepConfig parse(String[] args) throws IOException {
+		Properties props = new Properties();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (args[i].equals("--config")) {
+				try (Reader in = new FileReader(args[i + 1])) {
+					props.load(in);
+				}
+			}
+		}
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].startsWith("--") || i + 1 >= args.length) {
+				throw new IllegalArgumentException("Expected --key value pairs, got " + args[i]);
+			}
+			props.setProperty(args[i].substring(2), args[i + 1]);
+		}
+
+		SweepConfig c = new SweepConfig();
+		c.tle = ints(props.getProperty("tle"), c.tle);
+		c.n = ints(props.getProperty("n"), c.n);
+		c.f = ints(props.getProperty("f"), c.f);
+		c.alpha = doubles(props.getProperty("alpha"), c.alpha);
+		c.runs = Integer.parseInt(props.getProperty("runs", "" + c.runs));
+		c.parallelism = Integer.parseInt(props.getProperty("parallelism", "" + c.parallelism));
+		c.seed = Long.parseLong(props.getProperty("seed", "" + c.seed));
+		if (props.getProperty("dissemination") != null) {
+			String[] parts = props.getProperty("dissemination").split(",");
+			c.dissemination = new Dissemination[parts.length];
+			for (int i = 0; i < parts.length; i++) {
+				c.dissemination[i] = Dissemination.parse(parts[i]);
+			}
+		}
+		c.fanout = Integer.parseInt(props.getProperty("fanout", "" + c.fanout));
+		c.heartbeat = Integer.parseInt(props.getProperty("heartbeat", "" + c.heartbeat));
+		c.suspect = Integer.parseInt(props.getProperty("suspect", "" + c.suspect));
+		c.adaptive = Boolean.parseBoolean(props.getProperty("adaptive", "" + c.adaptive));
+		if (props.getProperty("crashAfter") != null) {
+			c.crashAfter = CrashPoint.parse(props.getProperty("crashAfter"));
+		}
+		c.results = props.getProperty("results", c.results);
+		if (props.getProperty("backoff") != null) {
+			c.backoff = Backoff.parse(props.getProperty("backoff"));
+		}
+		c.thrifty = Boolean.parseBoolean(props.getProperty("thrifty", "" + c.thrifty));
+		if (props.getProperty("dispatcher") != null) {
+			c.dispatcher = props.getProperty("dispatcher").split(",");
+			for (int i = 0; i < c.dispatcher.length; i++) {
+				c.dispatcher[i] = c.dispatcher[i].trim();
+			}
+		}
+		c.jvms = Integer.parseInt(props.getProperty("jvms", "" + c.jvms));
+		c.port = Integer.parseInt(props.getProperty("port", "" + c.port));
+		if (c.n.length != c.f.length) {
+			throw new IllegalArgumentException("n and f need the same number of values");
+		}
+		return c;
+	}
+
+	// All combinations in the order the original sweep ran them: TLE, then N/f, then ALPHA, then dissemination,
+	// then dispatcher
+	public List<Combination> combinations() {
+		List<Combination> list = new ArrayList<>();
+		for (int t : tle) {
+			for (int i = 0; i < n.length; i++) {
+				for (double a : alpha) {
+					for (Dissemination d : dissemination) {
+						for (String p : dispatcher) {
+							list.add(new Combination(list.size(), n[i], f[i], t, a, d, fanout, heartbeat, suspect,
+									adaptive, crashAfter, backoff, thrifty, p));
+						}
+					}
+				}
+			}
+		}
+		return list;
+	}
+
+	private static int[] ints(String value, int[] def) {
+		if (value == null) {
+			return def;
+		}
+		String[] parts = value.split(",");
+		int[] result = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			result[i] = Integer.parseInt(parts[i].trim());
+		}
+		return result;
+	}
+
+	private static double[] doubles(String value, double[] def) {
+		if (value == null) {
+			return def;
+		}
+		String[] parts = value.split(",");
+		double[] result = new double[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			result[i] = Double.parseDouble(parts[i].trim());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,44 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the combinations of a sweep on a fixed pool of threads. Each combination
+ * only touches its own state, so they can run side by side; results come back
+ * in combination order whatever the level of parallelism.
+ */
+public class SweepRunner {
+
+	public interface CombinationTask<R> {
+		R run(SweepConfig.Combination combination) throws Exception;
+	}
+
+	private final int parallelism;
+
+	public SweepRunner(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public <R> List<R> run(List<SweepConfig.Combination> combinations, CombinationTask<R> task)
+			throws InterruptedException, ExecutionException {
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		try {
+			List<Future<R>> futures = new ArrayList<>();
+			for (SweepConfig.Combination c : combinations) {
+				futures.add(pool.submit(() -> task.run(c)));
+			}
+			List<R> results = new ArrayList<>();
+			for (Future<R> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
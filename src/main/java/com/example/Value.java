@@ -0,0 +1,133 @@
+package com.example;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A proposed or decided value. Binary consensus uses fixed-width LongValue (ZERO
+ * and ONE are shared, so comparing them is a reference check), client commands
+ * and batches use a BytesValue payload. Values are immutable and a BytesValue
+ * hashes its payload once when built, so equals only compares bytes on a hash match.
+ */
+public abstract class Value implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	public static final Value ZERO = new LongValue(0);
+	public static final Value ONE = new LongValue(1);
+
+	Value() {
+	}
+
+	public static Value of(long value) {
+		if (value == 0) {
+			return ZERO;
+		}
+		return value == 1 ? ONE : new LongValue(value);
+	}
+
+	// Takes ownership of bytes, the caller must not change them afterwards
+	public static Value wrap(byte[] bytes) {
+		return new BytesValue(bytes);
+	}
+
+	// Copies the remaining bytes, buffers are usually reused by their owner
+	public static Value of(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return new BytesValue(bytes);
+	}
+
+	public static Value of(String s) {
+		return new BytesValue(s.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// Encoded size in bytes, without any type tag
+	public abstract int size();
+
+	public abstract void writeTo(ByteBuffer buffer);
+
+	public static final class LongValue extends Value {
+		private static final long serialVersionUID = 1L;
+
+		public final long value;
+
+		LongValue(long value) {
+			this.value = value;
+		}
+
+		@Override
+		public int size() {
+			return Long.BYTES;
+		}
+
+		@Override
+		public void writeTo(ByteBuffer buffer) {
+			buffer.putLong(value);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o == this || (o instanceof LongValue && ((LongValue) o).value == value);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(value);
+		}
+
+		@Override
+		public String toString() {
+			return Long.toString(value);
+		}
+	}
+
+	public static final class BytesValue extends Value {
+		private static final long serialVersionUID = 1L;
+
+		final byte[] bytes; // never modified, read directly by Batch
+		private final int hash;
+
+		BytesValue(byte[] bytes) {
+			this.bytes = bytes;
+			this.hash = Arrays.hashCode(bytes);
+		}
+
+		public ByteBuffer buffer() {
+			return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+		}
+
+		@Override
+		public int size() {
+			return bytes.length;
+		}
+
+		@Override
+		public void writeTo(ByteBuffer buffer) {
+			buffer.put(bytes);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this) {
+				return true;
+			}
+			if (!(o instanceof BytesValue)) {
+				return false;
+			}
+			BytesValue other = (BytesValue) o;
+			return other.hash == hash && Arrays.equals(other.bytes, bytes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.example;
+
+/**
+ * Self-scheduled in thrifty mode: if the phase of ballot on slot still has no quorum,
+ * send it to the peers that have not answered
+ */
+public class WidenMsg extends EpochMsg {
+	private static final long serialVersionUID = 1L;
+
+	public final int slot;
+	public final int ballot;
+	public final boolean impose; // which phase of the ballot, read or impose
+
+	public WidenMsg(int epoch, int slot, int ballot, boolean impose) {
+		super(epoch);
+		this.slot = slot;
+		this.ballot = ballot;
+		this.impose = impose;
+	}
+}
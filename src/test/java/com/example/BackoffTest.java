@@ -0,0 +1,100 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Backoff as written on the command line, the full-jitter window of each retry
+ * and when a proposer gives up.
+ */
+public class BackoffTest {
+	private static final int DRAWS = 20000;
+
+	@Test
+	public void parseAndPrint() {
+		assertSame(Backoff.OFF, Backoff.parse("off"));
+		assertSame(Backoff.OFF, Backoff.parse(" OFF "));
+		assertFalse(Backoff.OFF.enabled());
+		assertEquals("off", Backoff.OFF.toString());
+		assertEquals("off", Backoff.parse("0:0:0").toString());
+
+		Backoff backoff = Backoff.parse("1:64:8");
+		assertTrue(backoff.enabled());
+		assertEquals(1, backoff.baseMs);
+		assertEquals(64, backoff.maxMs);
+		assertEquals(8, backoff.maxRetries);
+		assertEquals("1:64:8", backoff.toString());
+		assertEquals("5:5:0", Backoff.parse("5:5:0").toString());
+	}
+
+	// A cap or a max without a wait would be dropped silently and printed as off
+	@Test
+	public void rejectsWhatItCannotKeep() {
+		for (String s : new String[] { "0:64:8", "0:0:8", "0:64:0", "-1:4:0", "4:2:0", "1:4:-1", "1:4", "1:4:8:2", "on" }) {
+			try {
+				Backoff.parse(s);
+				fail(s + " was accepted");
+			} catch (IllegalArgumentException e) {
+				// expected, NumberFormatException included
+			}
+		}
+	}
+
+	// Retry k waits uniformly in [0, min(max, base * 2^(k-1))], both ends included
+	@Test
+	public void delayIsFullJitter() {
+		Backoff backoff = new Backoff(3, 50, 0);
+		SplittableRandom random = new SplittableRandom(1);
+		long[] windows = { 3, 6, 12, 24, 48, 50, 50 };
+		for (int retry = 1; retry <= windows.length; retry++) {
+			long window = windows[retry - 1];
+			long[] counts = new long[(int) window + 1];
+			double sum = 0;
+			for (int i = 0; i < DRAWS; i++) {
+				long delay = backoff.delayMs(retry, random);
+				assertTrue("retry " + retry + " waited " + delay, delay >= 0 && delay <= window);
+				counts[(int) delay]++;
+				sum += delay;
+			}
+			for (int d = 0; d <= window; d++) {
+				assertTrue("retry " + retry + " never waited " + d, counts[d] > 0);
+			}
+			assertEquals("mean of retry " + retry, window / 2.0, sum / DRAWS, window * 0.05);
+		}
+	}
+
+	// The doubling saturates at max, however many retries
+	@Test
+	public void delayStaysWithinMax() {
+		Backoff backoff = new Backoff(1000, Integer.MAX_VALUE, 0);
+		SplittableRandom random = new SplittableRandom(2);
+		for (int retry : new int[] { 20, 31, 32, 33, 64, 1000, Integer.MAX_VALUE }) {
+			for (int i = 0; i < 100; i++) {
+				long delay = backoff.delayMs(retry, random);
+				assertTrue("retry " + retry + " waited " + delay, delay >= 0 && delay <= Integer.MAX_VALUE);
+			}
+		}
+	}
+
+	@Test
+	public void givesUpAfterMaxRetries() {
+		Backoff backoff = Backoff.parse("1:64:8");
+		for (int retries = 0; retries <= 8; retries++) {
+			assertFalse("after " + retries, backoff.givesUp(retries));
+		}
+		assertTrue(backoff.givesUp(9));
+		assertTrue(backoff.givesUp(Integer.MAX_VALUE));
+
+		Backoff uncapped = Backoff.parse("1:64:0");
+		for (int retries : new int[] { 0, 1, 9, 1000, Integer.MAX_VALUE }) {
+			assertFalse("after " + retries, uncapped.givesUp(retries));
+		}
+	}
+}
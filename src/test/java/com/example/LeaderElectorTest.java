@@ -0,0 +1,148 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * LeaderElector of N processes on a 1 ms clock, ticking and heartbeating the way
+ * ProcessCore drives it: when the leader crashes, exactly one process takes over.
+ */
+public class LeaderElectorTest {
+	private static final int N = 100;
+	private static final int HEARTBEAT_MS = 20;
+	private static final int SUSPECT_MS = 60;
+
+	@Test
+	public void nextProcessTakesOverFromCrashedLeader() {
+		Cluster cluster = new Cluster(1);
+		cluster.run(500);
+		assertEquals(List.of(0), cluster.claims);
+		cluster.crash(0);
+		cluster.run(1500);
+		assertEquals(List.of(0, 1), cluster.claims);
+		assertTrue("took over after " + cluster.claimedAt(1), cluster.claimedAt(1) <= 500 + SUSPECT_MS + HEARTBEAT_MS + 1);
+		cluster.assertAgree(1);
+	}
+
+	// Processes that never led are never heard from: the first live one after them takes over, alone
+	@Test
+	public void silentCrashedProcessesGetTheirTurn() {
+		Cluster cluster = new Cluster(2);
+		cluster.run(500);
+		cluster.crash(0);
+		cluster.crash(1);
+		cluster.crash(2);
+		cluster.run(2000);
+		assertEquals(List.of(0, 3), cluster.claims);
+		assertTrue("took over after " + cluster.claimedAt(3), cluster.claimedAt(3) <= 500 + 3 * SUSPECT_MS + HEARTBEAT_MS + 1);
+		cluster.assertAgree(3);
+
+		cluster.crash(3);
+		cluster.run(3000);
+		assertEquals(List.of(0, 3, 4), cluster.claims);
+		cluster.assertAgree(4);
+	}
+
+	@Test
+	public void leaderCrashedAtStart() {
+		Cluster cluster = new Cluster(3);
+		cluster.crash(0);
+		cluster.run(1000);
+		assertEquals(List.of(1), cluster.claims);
+		assertTrue("took over after " + cluster.claimedAt(1), cluster.claimedAt(1) <= SUSPECT_MS + HEARTBEAT_MS);
+		cluster.assertAgree(1);
+	}
+
+	// A lower process that shows up again gets the leadership back
+	@Test
+	public void lowerProcessAliveAgain() {
+		Cluster cluster = new Cluster(4);
+		cluster.run(500);
+		cluster.silence(0, true);
+		cluster.run(1000);
+		assertEquals(List.of(0, 1), cluster.claims);
+		cluster.silence(0, false);
+		cluster.run(1500);
+		cluster.assertAgree(0);
+	}
+
+	private static class Cluster {
+		final LeaderElector[] electors = new LeaderElector[N];
+		final int[] phase = new int[N]; // ms of the first tick, as launches are spread
+		final int[] view = new int[N];
+		final boolean[] crashed = new boolean[N];
+		final boolean[] silent = new boolean[N]; // ticks, but its heartbeats are lost
+		final List<Integer> claims = new ArrayList<>(); // processes that became leader in their own view, in order
+		final List<Long> claimTimes = new ArrayList<>();
+		List<Integer> inFlight = new ArrayList<>(); // heartbeat senders, delivered 1 ms later
+		long now = 0;
+
+		Cluster(long seed) {
+			Random random = new Random(seed);
+			for (int i = 0; i < N; i++) {
+				electors[i] = new LeaderElector(i, SUSPECT_MS);
+				electors[i].start(0);
+				phase[i] = random.nextInt(HEARTBEAT_MS);
+				view[i] = -1;
+			}
+		}
+
+		void crash(int index) {
+			crashed[index] = true;
+		}
+
+		void silence(int index, boolean on) {
+			silent[index] = on;
+		}
+
+		void run(long untilMs) {
+			for (; now < untilMs; now++) {
+				List<Integer> delivered = inFlight;
+				inFlight = new ArrayList<>();
+				for (int from : delivered) {
+					for (int p = 0; p < N; p++) {
+						if (p != from && !crashed[p]) {
+							electors[p].heard(from, now);
+							update(p);
+						}
+					}
+				}
+				for (int p = 0; p < N; p++) {
+					if (!crashed[p] && (now - phase[p]) % HEARTBEAT_MS == 0 && now >= phase[p]) {
+						update(p);
+						if (view[p] == p && !silent[p]) {
+							inFlight.add(p);
+						}
+					}
+				}
+			}
+		}
+
+		private void update(int p) {
+			int leader = electors[p].leader(now);
+			if (leader != view[p] && leader == p) {
+				claims.add(p);
+				claimTimes.add(now);
+			}
+			view[p] = leader;
+		}
+
+		long claimedAt(int p) {
+			return claimTimes.get(claims.lastIndexOf(p));
+		}
+
+		void assertAgree(int leader) {
+			for (int p = 0; p < N; p++) {
+				if (!crashed[p]) {
+					assertEquals("leader of process " + p + " at " + now + " ms", leader, electors[p].leader(now));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Replicated log with the leader fast path, on the Simulator: a stable leader
+ * skips the read phase, and the logs agree when leaders keep changing.
+ */
+public class LogFastPathTest {
+	private static final int N = 5;
+	private static final int WINDOW = 8;
+
+	@Test
+	public void stableLeaderSkipsReadPhases() {
+		Simulator sim = new Simulator(N, WINDOW, true, 1);
+		assertTrue("every command delivered", sim.runLog(200, 500, 10000) >= 0);
+		ProtocolStats stats = sim.protocolStats();
+		assertEquals(200, stats.imposes);
+		assertTrue("read phases only for the first window, got " + stats.reads, stats.reads <= WINDOW);
+		assertEquals(stats.imposes - stats.reads, stats.fastImposes);
+		for (int p = 0; p < N; p++) {
+			List<Value> log = sim.log(p);
+			for (int i = 0; i < 200; i++) {
+				assertEquals("process " + (p + 1) + " slot " + i, Value.of("cmd-" + i), log.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void twoPhasesWithoutFastPath() {
+		Simulator sim = new Simulator(N, WINDOW, false, 1);
+		assertTrue("every command delivered", sim.runLog(200, 500, 10000) >= 0);
+		ProtocolStats stats = sim.protocolStats();
+		assertEquals(200, stats.reads);
+		assertEquals(200, stats.imposes);
+		assertEquals(0, stats.fastImposes);
+	}
+
+	@Test
+	public void fastPathHalvesCommitLatency() {
+		double twoPhases = new Simulator(N, WINDOW, false, 1).runLog(200, 500, 10000);
+		double fast = new Simulator(N, WINDOW, true, 1).runLog(200, 500, 10000);
+		assertTrue("fast path " + fast + " ms against " + twoPhases + " ms", fast > 0 && fast < 0.6 * twoPhases);
+	}
+
+	// A leader that has not heard of the new one yet keeps imposing on slots the new one proposes on
+	@Test
+	public void logsAgreeWhileLeadersChange() {
+		for (boolean fastPath : new boolean[] { true, false }) {
+			long aborts = 0;
+			long fastImposes = 0;
+			for (long seed = 1; seed <= 50; seed++) {
+				Simulator sim = new Simulator(N, WINDOW, fastPath, seed);
+				Random random = new Random(seed);
+				int commands = 400;
+				sim.startLog(commands);
+				sim.elect(0, 0);
+				int leader = 0;
+				for (int i = 0; i < commands; i++) {
+					if (i % 20 == 19) {
+						leader = (leader + 1 + random.nextInt(N - 1)) % N;
+						sim.elect(leader, i * 100L);
+					}
+					sim.submit(leader, i, i * 100L);
+				}
+				sim.run(60000);
+				assertPrefixesAgree(sim, "fastPath=" + fastPath + ", seed " + seed);
+				aborts += sim.protocolStats().abortedBallots;
+				fastImposes += sim.protocolStats().fastImposes;
+			}
+			assertTrue("leaders competed", aborts > 0);
+			assertEquals("fast imposes", fastPath, fastImposes > 0);
+		}
+	}
+
+	// An acceptor that read a ballot for the slots nobody used yet refuses lower ballots on all of them
+	@Test
+	public void readCoversUnusedSlots() {
+		Recorder env = new Recorder();
+		ProcessCore acceptor = new ProcessCore(env, 3, N, 0, 0, 0, WINDOW, 1, 0);
+		acceptor.receive(new RestartMsg(1), -1);
+		acceptor.receive(new ReadMsg(1, 0, 2), 1);
+		GatherMsg gather = (GatherMsg) env.sent.get(0);
+		assertEquals(1, gather.free);
+
+		acceptor.receive(new ImposeMsg(1, 5, 1, Value.of("stale")), 0);
+		AbortMsg abort = (AbortMsg) env.sent.get(1);
+		assertEquals(5, abort.slot);
+		assertEquals(2, abort.highest);
+
+		acceptor.receive(new ImposeMsg(1, 6, 2, Value.of("cmd")), 1);
+		assertTrue(env.sent.get(2) instanceof AckMsg);
+
+		// Slot 6 is in use now, so a higher read only covers what comes after it
+		acceptor.receive(new ReadMsg(1, 0, 4), 3);
+		assertEquals(7, ((GatherMsg) env.sent.get(3)).free);
+		acceptor.receive(new ReadMsg(1, 3, 2), 1);
+		assertEquals(-1, ((GatherMsg) env.sent.get(4)).free);
+	}
+
+	private static void assertPrefixesAgree(Simulator sim, String run) {
+		for (int p = 0; p < N; p++) {
+			for (int q = p + 1; q < N; q++) {
+				List<Value> a = sim.log(p);
+				List<Value> b = sim.log(q);
+				for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+					assertEquals(run + ": slot " + i + " of processes " + (p + 1) + " and " + (q + 1), a.get(i), b.get(i));
+				}
+			}
+		}
+	}
+
+	private static class Recorder implements ProcessCore.Env {
+		final List<Object> sent = new ArrayList<>();
+
+		@Override
+		public void send(int to, Object msg) {
+			sent.add(msg);
+		}
+
+		@Override
+		public void broadcast(Object msg) {
+			sent.add(msg);
+		}
+
+		@Override
+		public void schedule(long delayMs, Object msg) {
+		}
+
+		@Override
+		public long nowNanos() {
+			return 0;
+		}
+
+		@Override
+		public void reportDelay() {
+		}
+
+		@Override
+		public void countDecision() {
+		}
+
+		@Override
+		public void deliver(int slot, Value value, List<String> commands) {
+		}
+
+		@Override
+		public void log(String template, Object... args) {
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package com.example;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Every message type through MessageCodec and ConsensusSerializer: the bytes
+ * written are exactly size(), and decoding them gives back the same fields.
+ * Members is left out, its references need a running actor system.
+ */
+public class MessageCodecTest {
+	private static final int[] INTS = { 0, 1, -1, 63, -64, 64, -65, 1000, -1000, Integer.MAX_VALUE, Integer.MAX_VALUE - 1,
+			Integer.MIN_VALUE, Integer.MIN_VALUE + 1 };
+	private static final long[] LONGS = { 0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1,
+			System.nanoTime() };
+
+	@Test
+	public void roundTripsEveryMessageType() {
+		Set<Class<?>> types = new HashSet<>();
+		for (Object msg : messages()) {
+			assertTrue(msg.getClass().getSimpleName(), MessageCodec.supports(msg));
+			assertRoundTrip(msg);
+			types.add(msg.getClass());
+		}
+		// every tag but MEMBERS
+		assertEquals(17, types.size());
+	}
+
+	// A Read/Gather/Impose/Ack/Abort of the initial negative ballots takes no more bytes than a small positive one
+	@Test
+	public void negativeBallotsStayShort() {
+		assertEquals(MessageCodec.size(new ReadMsg(1, 0, 5)), MessageCodec.size(new ReadMsg(1, 0, -5)));
+		assertEquals(MessageCodec.size(new AbortMsg(1, 0, -5)), MessageCodec.size(new AbortMsg(1, 0, 5)));
+		assertEquals(MessageCodec.size(new AbortMsg(1, 0, 100000)), MessageCodec.size(new AbortMsg(1, 0, 100000, 100002)));
+	}
+
+	// The serializer writes into Artery's pooled buffers at whatever position they are
+	@Test
+	public void serializerPaths() {
+		ConsensusSerializer serializer = new ConsensusSerializer();
+		for (Object msg : messages()) {
+			byte[] bytes = serializer.toBinary(msg);
+			assertEquals(MessageCodec.size(msg), bytes.length);
+			assertSameFields(msg, serializer.fromBinary(bytes, serializer.manifest(msg)));
+
+			ByteBuffer buf = ByteBuffer.allocate(bytes.length + 10);
+			buf.put((byte) 42);
+			serializer.toBinary(msg, buf);
+			assertEquals(1 + bytes.length, buf.position());
+			buf.flip();
+			buf.get();
+			assertSameFields(msg, serializer.fromBinary(buf, ""));
+			assertEquals(msg.getClass().getSimpleName(), 1 + bytes.length, buf.position());
+		}
+	}
+
+	private static void assertRoundTrip(Object msg) {
+		String name = msg.getClass().getSimpleName();
+		int size = MessageCodec.size(msg);
+		ByteBuffer buf = ByteBuffer.allocate(size + 1);
+		MessageCodec.encode(msg, buf);
+		assertEquals(name + " bytes written", size, buf.position());
+		buf.put((byte) 0x7F); // the next frame, must be left alone
+		buf.flip();
+		Object decoded = MessageCodec.decode(buf);
+		assertEquals(name + " bytes read", size, buf.position());
+		assertSameFields(msg, decoded);
+
+		byte[] again = new byte[size];
+		MessageCodec.encode(decoded, ByteBuffer.wrap(again));
+		byte[] first = new byte[size];
+		System.arraycopy(buf.array(), 0, first, 0, size);
+		assertArrayEquals(name + " re-encoded", first, again);
+	}
+
+	// Public instance fields of the message and its superclasses
+	private static void assertSameFields(Object expected, Object actual) {
+		assertEquals(expected.getClass(), actual.getClass());
+		for (Field field : expected.getClass().getFields()) {
+			if (Modifier.isStatic(field.getModifiers())) {
+				continue;
+			}
+			try {
+				Object e = field.get(expected);
+				Object a = field.get(actual);
+				assertTrue(expected.getClass().getSimpleName() + "." + field.getName() + ": " + e + " != " + a,
+						Arrays.deepEquals(new Object[] { e }, new Object[] { a }));
+			} catch (IllegalAccessException ex) {
+				throw new AssertionError(ex);
+			}
+		}
+	}
+
+	private static List<Object> messages() {
+		List<Value> values = new ArrayList<>();
+		values.add(null);
+		for (long v : LONGS) {
+			values.add(Value.of(v));
+		}
+		values.add(Value.of(""));
+		values.add(Value.of("cmd-17"));
+		byte[] large = new byte[300]; // a two byte length
+		for (int i = 0; i < large.length; i++) {
+			large[i] = (byte) i;
+		}
+		values.add(Value.wrap(large));
+
+		List<Object> messages = new ArrayList<>();
+		for (int x : INTS) {
+			int epoch = Math.abs(x % 1000);
+			messages.add(new ReadMsg(epoch, x, x));
+			messages.add(new ReadMsg(epoch, 0, x));
+			messages.add(new AckMsg(epoch, x, x));
+			messages.add(new AbortMsg(epoch, 3, x));
+			for (int highest : INTS) {
+				messages.add(new AbortMsg(epoch, 3, x, highest)); // hint below, above and across the int range
+			}
+			messages.add(new HoldMsg(x));
+			messages.add(new HeartbeatMsg(x));
+			messages.add(new PullMsg(epoch, x));
+			messages.add(new LeaderSelectionMsg(epoch, x));
+			messages.add(new RestartMsg(x));
+			messages.add(new RestartedMsg(x, epoch));
+			messages.add(new DecisionReportMsg(epoch, x, x % 2 == 0, x));
+			messages.add(new CrashMsg(x, x % 2 != 0));
+			for (Value v : values) {
+				messages.add(new GatherMsg(epoch, 2, x, -x, v, x));
+				messages.add(new ImposeMsg(epoch, x, x, v));
+				messages.add(new DecideMsg(epoch, x, v, x, x));
+			}
+		}
+		for (long seed : LONGS) {
+			messages.add(new LaunchMsg(7, seed));
+		}
+		messages.add(new ProtocolStatsMsg());
+		ProtocolStats stats = new ProtocolStats();
+		messages.add(stats.copy());
+		for (int t = 0; t < ProtocolStats.TYPES.length; t++) {
+			stats.sent[t] = LONGS[t % LONGS.length];
+			stats.received[t] = 1L << (7 * t);
+		}
+		stats.ballots = 3;
+		stats.fastImposes = 1;
+		stats.abortedBallots = 2;
+		stats.retries = 2;
+		stats.widened = 1;
+		stats.readNanos = Long.MAX_VALUE;
+		stats.reads = 5;
+		stats.imposeNanos = 123456789012L;
+		stats.imposes = 4;
+		stats.decideNanos = Long.MIN_VALUE;
+		stats.decisions = 1;
+		messages.add(stats);
+		return messages;
+	}
+}
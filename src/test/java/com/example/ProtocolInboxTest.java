@@ -0,0 +1,185 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * The delivery order of ProtocolMailbox: DecideMsg, then AbortMsg and AckMsg,
+ * then the rest in arrival order, and which requests it drops.
+ */
+public class ProtocolInboxTest {
+	private static final Value V = Value.of("v");
+
+	@Test
+	public void higherBallotDropsLowerOneOfSameSlot() {
+		Inbox inbox = new Inbox();
+		inbox.add(new ReadMsg(1, 0, 3), "p");
+		Item other = inbox.add(new ReadMsg(1, 0, 2), "q"); // another proposer's is not its business
+		Item high = inbox.add(new ReadMsg(1, 0, 8), "p");
+		assertEquals(3, inbox.size());
+		assertEquals(List.of(other, high), inbox.drain());
+		assertTrue(inbox.isEmpty());
+	}
+
+	// Imposes count as requests of the ballot too, the answer to a Read of a ballot given up on is dropped as well
+	@Test
+	public void imposeAndReadOfSameSlotSupersedeEachOther() {
+		Inbox inbox = new Inbox();
+		inbox.add(new ImposeMsg(1, 4, 3, V), "p");
+		Item read = inbox.add(new ReadMsg(1, 4, 5), "p");
+		Item impose = inbox.add(new ImposeMsg(1, 4, 5, V), "p");
+		assertEquals(List.of(read, impose), inbox.drain());
+	}
+
+	// A leader with a window of slots in flight: a lower ballot is delivered when the higher one is of another slot
+	@Test
+	public void interleavedSlotsNeverDrop() {
+		Inbox inbox = new Inbox();
+		List<Item> sent = new ArrayList<>();
+		for (int slot = 0; slot < 5; slot++) {
+			sent.add(inbox.add(new ReadMsg(1, slot, 10 - slot), "p"));
+			sent.add(inbox.add(new ImposeMsg(1, slot + 5, slot, V), "p"));
+		}
+		for (int slot = 0; slot < 5; slot++) {
+			sent.add(inbox.add(new ImposeMsg(1, slot, 10 - slot, V), "p"));
+		}
+		assertEquals(sent, inbox.drain());
+
+		// the higher ballot of slot 0 only drops the slot 0 request, queued among the others
+		inbox.add(new ReadMsg(1, 0, 3), "p");
+		Item one = inbox.add(new ReadMsg(1, 1, 3), "p");
+		Item zero = inbox.add(new ReadMsg(1, 0, 5), "p");
+		assertEquals(List.of(one, zero), inbox.drain());
+	}
+
+	// After a restart the ballots start over, so a low ballot of a newer epoch is not superseded by an old one
+	@Test
+	public void newEpochIsNeverSuperseded() {
+		Inbox inbox = new Inbox();
+		Item old = inbox.add(new ReadMsg(1, 0, 9), "p");
+		Item fresh = inbox.add(new ReadMsg(2, 0, 1), "p");
+		assertEquals(List.of(old, fresh), inbox.drain());
+
+		inbox.add(new ReadMsg(2, 0, 1), "p");
+		Item higher = inbox.add(new ReadMsg(2, 0, 4), "p");
+		assertEquals(List.of(higher), inbox.drain());
+	}
+
+	// Duplicates of the highest ballot are all kept, only the lower one goes
+	@Test
+	public void sameBallotIsKept() {
+		Inbox inbox = new Inbox();
+		inbox.add(new ReadMsg(1, 0, 2), "p");
+		Item first = inbox.add(new ReadMsg(1, 0, 6), "p");
+		Item second = inbox.add(new ReadMsg(1, 0, 6), "p");
+		assertEquals(List.of(first, second), inbox.drain());
+		// nothing of the proposer is left behind to drop the next request
+		Item next = inbox.add(new ReadMsg(1, 0, 1), "p");
+		assertEquals(List.of(next), inbox.drain());
+	}
+
+	@Test
+	public void decisionsThenRepliesThenRest() {
+		Inbox inbox = new Inbox();
+		Item read = inbox.add(new ReadMsg(1, 0, 3), "p");
+		Item ack = inbox.add(new AckMsg(1, 0, 3), "q");
+		Item hold = inbox.add(new HoldMsg(1), null);
+		Item decide = inbox.add(new DecideMsg(1, 0, V, 3, 1), "q");
+		Item abort = inbox.add(new AbortMsg(1, 0, 3), "r");
+		Item gather = inbox.add(new GatherMsg(1, 0, 3, 2, V, 1), "q");
+		Item decide2 = inbox.add(new DecideMsg(1, 1, V, 4, 1), "r");
+		Item ack2 = inbox.add(new AckMsg(1, 0, 3), "r");
+		assertEquals(8, inbox.size());
+		assertEquals(List.of(decide, decide2, ack, abort, ack2, read, hold, gather), inbox.drain());
+	}
+
+	// Items added while draining take their place in the order
+	@Test
+	public void pollBetweenAdds() {
+		Inbox inbox = new Inbox();
+		Item read = inbox.add(new ReadMsg(1, 0, 3), "p");
+		Item hold = inbox.add(new HoldMsg(1), null);
+		assertEquals(read, inbox.poll());
+		Item abort = inbox.add(new AbortMsg(1, 0, 3), "q");
+		inbox.add(new ReadMsg(1, 0, 3), "p");
+		Item higher = inbox.add(new ReadMsg(1, 0, 5), "p");
+		assertEquals(abort, inbox.poll());
+		assertEquals(hold, inbox.poll());
+		assertEquals(higher, inbox.poll());
+		assertNull(inbox.poll());
+	}
+
+	@Test
+	public void clear() {
+		Inbox inbox = new Inbox();
+		inbox.add(new ReadMsg(1, 0, 3), "p");
+		inbox.add(new ReadMsg(1, 0, 9), "p");
+		inbox.add(new DecideMsg(1, 0, V, 3, 1), "q");
+		inbox.clear();
+		assertTrue(inbox.isEmpty());
+		assertEquals(0, inbox.size());
+		// the ballot 9 request is gone with it
+		Item read = inbox.add(new ReadMsg(1, 0, 4), "p");
+		assertEquals(List.of(read), inbox.drain());
+	}
+
+	// The Simulator runs the same profile through it and still decides
+	@Test
+	public void priorityProfileDecides() {
+		for (double alpha : new double[] { 0.1, 1 }) {
+			SweepConfig.Combination c = new SweepConfig.Combination(0, 50, 24, 50, alpha, Dissemination.ALL_TO_ALL, 0, 0,
+					0, false, CrashPoint.NONE, Backoff.OFF, false, SweepConfig.Combination.PRIORITY_DISPATCHER);
+			Simulator sim = new Simulator(c, 1);
+			for (int run = 0; run < 5; run++) {
+				assertTrue("ALPHA=" + alpha + ", run " + run, sim.runOnce(c.f, c.tle, 30000) >= 0);
+			}
+		}
+	}
+
+	private static final class Item {
+		final Object msg;
+		final Object from;
+
+		Item(Object msg, Object from) {
+			this.msg = msg;
+			this.from = from;
+		}
+
+		@Override
+		public String toString() {
+			return from + ": " + msg.getClass().getSimpleName();
+		}
+	}
+
+	private static final class Inbox extends ProtocolInbox<Item> {
+		@Override
+		protected Object message(Item item) {
+			return item.msg;
+		}
+
+		@Override
+		protected Object sender(Item item) {
+			return item.from;
+		}
+
+		Item add(Object msg, Object from) {
+			Item item = new Item(msg, from);
+			add(item);
+			return item;
+		}
+
+		List<Item> drain() {
+			List<Item> items = new ArrayList<>();
+			for (Item item; (item = poll()) != null;) {
+				items.add(item);
+			}
+			return items;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * QuorumTracker against a HashSet and a running maximum, through the switch
+ * from the sparse set to the bitset and across reuse after clear().
+ */
+public class QuorumTrackerTest {
+	private static final int[] SIZES = { 1, 5, 64, 100, 1000, 5000, 100000 };
+
+	@Test
+	public void matchesNaiveTracker() {
+		Random random = new Random(1);
+		for (int n : SIZES) {
+			QuorumTracker tracker = new QuorumTracker(n);
+			fill(tracker, new Naive(), n, n, random);
+			assertEquals("n = " + n + " ends as a bitset", 8L * ((n + 63) / 64), tracker.bytes());
+		}
+	}
+
+	// A pooled tracker is cleared and handed to the next ballot, in whichever representation it ended
+	@Test
+	public void reuseAfterClear() {
+		Random random = new Random(2);
+		for (int n : SIZES) {
+			QuorumTracker tracker = new QuorumTracker(n);
+			for (int round = 0; round < 6; round++) {
+				tracker.clear();
+				assertEquals(0, tracker.size());
+				assertEquals(Integer.MIN_VALUE, tracker.maxBallot());
+				assertEquals(null, tracker.maxEstimate());
+				// a few answers (an aborted ballot) or a majority, alternately
+				int answers = round % 2 == 0 ? Math.min(n, 3) : n / 2 + 1;
+				fill(tracker, new Naive(), n, answers, random);
+			}
+		}
+	}
+
+	// Log runs at an N where every quorum goes dense, so each slot gets trackers pooled by an earlier one
+	@Test
+	public void pooledTrackersReachQuorums() {
+		Simulator sim = new Simulator(600, 4, false, 1);
+		for (int run = 0; run < 2; run++) {
+			assertTrue("run " + run + " delivered every command", sim.runLog(6, 500, 60000) >= 0);
+			ProtocolStats stats = sim.protocolStats();
+			assertEquals(6, stats.reads);
+			assertEquals(6, stats.imposes);
+		}
+	}
+
+	// Adds distinct answers until the tracker holds target of them, with duplicates mixed in
+	private static void fill(QuorumTracker tracker, Naive naive, int n, int target, Random random) {
+		while (naive.answered.size() < target) {
+			int index = random.nextInt(4) == 0 && !naive.answered.isEmpty() ? naive.any(random) : random.nextInt(n);
+			int ballot = random.nextInt(2 * n + 20) - n - 10;
+			if (random.nextInt(50) == 0) {
+				ballot = Integer.MIN_VALUE + random.nextInt(2);
+			}
+			Value estimate = random.nextBoolean() ? null : Value.of("v" + index + "/" + ballot);
+			String at = "n = " + n + " after " + naive.answered.size() + " answers, index " + index;
+			assertEquals(at, naive.add(index, ballot, estimate), tracker.add(index, ballot, estimate));
+			assertEquals(at, naive.answered.size(), tracker.size());
+			assertEquals(at, naive.maxBallot, tracker.maxBallot());
+			assertEquals(at, naive.maxEstimate, tracker.maxEstimate());
+			assertTrue(at, tracker.contains(index));
+		}
+		for (int i = 0; i < Math.min(n, 2000); i++) {
+			int index = n <= 2000 ? i : random.nextInt(n);
+			assertEquals("n = " + n + ", index " + index, naive.answered.contains(index), tracker.contains(index));
+		}
+	}
+
+	private static class Naive {
+		final Set<Integer> answered = new HashSet<>();
+		final List<Integer> order = new ArrayList<>();
+		int maxBallot = Integer.MIN_VALUE;
+		Value maxEstimate = null;
+
+		boolean add(int index, int ballot, Value estimate) {
+			if (!answered.add(index)) {
+				return false;
+			}
+			order.add(index);
+			if (ballot > maxBallot) {
+				maxBallot = ballot;
+				maxEstimate = estimate;
+			}
+			return true;
+		}
+
+		int any(Random random) {
+			return order.get(random.nextInt(order.size()));
+		}
+	}
+}
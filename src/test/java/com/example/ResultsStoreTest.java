@@ -0,0 +1,210 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * What decides whether a sweep that was killed resumes correctly: the store's
+ * JSON lines read back, a torn last line is skipped and repaired, and pending()
+ * counts runs from the last record of run 1.
+ */
+public class ResultsStoreTest {
+	private static final long SEED = 42;
+	private static final int RUNS = 3;
+
+	private final SweepConfig.Combination a = combination(Dissemination.ALL_TO_ALL);
+	private final SweepConfig.Combination b = combination(Dissemination.TREE);
+	private final SweepConfig.Combination c = combination(Dissemination.GOSSIP);
+	private Path dir;
+	private Path path;
+
+	@Before
+	public void createStore() throws IOException {
+		dir = Files.createTempDirectory("results");
+		path = dir.resolve("results.jsonl");
+	}
+
+	@After
+	public void deleteStore() throws IOException {
+		for (Path p : Files.list(dir).toArray(Path[]::new)) {
+			Files.delete(p);
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void pendingSkipsCompleteCombinations() throws IOException {
+		ResultsStore store = new ResultsStore(path);
+		assertEquals(List.of(a, b, c), store.pending(List.of(a, b, c), SEED, RUNS));
+		write(store, a, 0, RUNS);
+		write(store, b, 0, 2);
+		assertEquals(List.of(b, c), store.pending(List.of(a, b, c), SEED, RUNS));
+		// the same combinations under another sweep seed are other results
+		assertEquals(List.of(a, b, c), store.pending(List.of(a, b, c), SEED + 1, RUNS));
+	}
+
+	// A combination cut short is run again from run 1, and only the runs from there on count
+	@Test
+	public void runOneStartsOver() throws IOException {
+		ResultsStore store = new ResultsStore(path);
+		write(store, a, 0, 2);
+		write(store, a, 0, 2);
+		assertEquals(List.of(a), store.pending(List.of(a), SEED, RUNS));
+		write(store, a, 2, RUNS);
+		assertEquals(List.of(), store.pending(List.of(a), SEED, RUNS));
+		write(store, a, 0, 1);
+		assertEquals(List.of(a), store.pending(List.of(a), SEED, RUNS));
+	}
+
+	@Test
+	public void tornLastLineIsSkippedAndRepaired() throws IOException {
+		ResultsStore store = new ResultsStore(path);
+		write(store, a, 0, RUNS);
+		long size = Files.size(path);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.truncate(size - 20); // killed while writing the last run
+		}
+		List<String> torn = Files.readAllLines(path, StandardCharsets.UTF_8);
+		assertNull(ResultsStore.parse(torn.get(RUNS - 1)));
+		assertEquals(List.of(a), new ResultsStore(path).pending(List.of(a), SEED, RUNS));
+
+		// Reopening ended the torn line, so the rerun's records are not glued to it
+		store = new ResultsStore(path);
+		String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+		assertTrue(content.endsWith("\n"));
+		assertEquals(torn, Arrays.asList(content.substring(0, content.length() - 1).split("\n")));
+		write(store, a, 0, RUNS);
+		List<Map<String, Object>> records = new ArrayList<>();
+		ResultsStore.forEach(path, records::add);
+		assertEquals(2 * RUNS - 1, records.size());
+		assertEquals(List.of(), store.pending(List.of(a), SEED, RUNS));
+
+		// A store that is intact is left as it is
+		size = Files.size(path);
+		new ResultsStore(path);
+		assertEquals(size, Files.size(path));
+	}
+
+	@Test
+	public void recordsReadBack() throws IOException {
+		ResultsStore store = new ResultsStore(path);
+		write(store, b, 0, 1);
+		List<Map<String, Object>> records = new ArrayList<>();
+		ResultsStore.forEach(path, records::add);
+		Map<String, Object> record = records.get(0);
+		assertEquals(ResultsStore.key(b, SEED), record.get("combination"));
+		assertEquals(1L, record.get("run"));
+		assertEquals(0.1, record.get("alpha"));
+		assertEquals("TREE", record.get("dissemination"));
+		assertEquals(Boolean.TRUE, record.get("adaptive"));
+		assertEquals("GATHER", record.get("crashAfter"));
+		assertEquals(5, ((long[]) record.get("processDelaysNs")).length);
+		assertEquals(ProtocolStats.TYPES.length, ((long[]) record.get("sent")).length);
+		assertEquals(7L, ((long[]) record.get("sent"))[0]);
+	}
+
+	@Test
+	public void parse() {
+		Map<String, Object> record = ResultsStore.parse(
+				" { \"combination\" : \"n=3,a\\\"b\\\\c\", \"run\":2, \"d\":-1.5e3,\"x\":[ -1, 2 ,3],\"e\":[],\"t\":true,\"z\":-7} ");
+		assertEquals("n=3,a\"b\\c", record.get("combination"));
+		assertEquals(2L, record.get("run"));
+		assertEquals(-1500.0, record.get("d"));
+		assertEquals(List.of(-1L, 2L, 3L), box((long[]) record.get("x")));
+		assertEquals(0, ((long[]) record.get("e")).length);
+		assertEquals(Boolean.TRUE, record.get("t"));
+		assertEquals(-7L, record.get("z"));
+
+		assertNull(ResultsStore.parse(""));
+		assertNull(ResultsStore.parse("{\"combination\":\"n=3\",\"run\":"));
+		assertNull(ResultsStore.parse("{\"combination\":\"n=3\",\"ru"));
+		assertNull(ResultsStore.parse("{\"run\":1}")); // not a run record
+		assertNull(ResultsStore.parse("not json"));
+	}
+
+	// Combinations that differ only in dissemination are told apart in both CSV files
+	@Test
+	public void reportKeepsEveryParameter() throws IOException {
+		ResultsStore store = new ResultsStore(path);
+		write(store, a, 0, RUNS);
+		write(store, b, 0, RUNS);
+		List<ReportMain.ResultData> results = ReportMain.read(path);
+		assertEquals(2, results.size());
+		Path latencies = dir.resolve("latency.csv");
+		Path phases = dir.resolve("phases.csv");
+		ReportMain.exportLatencies(results, latencies.toString());
+		ReportMain.exportPhases(results, phases.toString());
+
+		List<String> lines = Files.readAllLines(latencies, StandardCharsets.UTF_8);
+		assertTrue(lines.get(0), lines.get(0).startsWith(ReportMain.ResultData.CSV_HEADER + ","));
+		assertTrue(lines.get(1), lines.get(1).startsWith("5,2,100,0.1,ALL_TO_ALL,4,20,60,true,GATHER,default,"));
+		assertTrue(lines.get(2), lines.get(2).startsWith("5,2,100,0.1,TREE,4,20,60,true,GATHER,default,"));
+		lines = Files.readAllLines(phases, StandardCharsets.UTF_8);
+		assertEquals(1 + 2 * RUNS, lines.size());
+		assertTrue(lines.get(0), lines.get(0).startsWith(ReportMain.ResultData.CSV_HEADER + ",run,"));
+		assertTrue(lines.get(RUNS + 1), lines.get(RUNS + 1).startsWith("5,2,100,0.1,TREE,4,20,60,true,GATHER,"));
+	}
+
+	// Records written before dissemination and the rest were fields get them from the key
+	@Test
+	public void reportReadsOlderRecords() throws IOException {
+		String key = ResultsStore.key(b, SEED);
+		Files.write(path, List.of("{\"combination\":\"" + key + "\",\"run\":1,\"runs\":1,\"n\":5,\"f\":2,\"tle\":100,"
+				+ "\"alpha\":0.1,\"dispatcher\":\"default\",\"runSeed\":1,\"delayNs\":1000000}"), StandardCharsets.UTF_8);
+		ReportMain.ResultData data = ReportMain.read(path).get(0);
+		assertEquals("TREE", data.dissemination);
+		assertEquals(4, data.fanout);
+		assertEquals(20, data.heartbeat);
+		assertEquals(60, data.suspect);
+		assertTrue(data.adaptive);
+		assertEquals("GATHER", data.crashAfter);
+	}
+
+	// Runs from (0-based) up to but excluding to, each with a decision and counters
+	private static void write(ResultsStore store, SweepConfig.Combination c, int from, int to) throws IOException {
+		Experiment experiment = new Experiment(c, to);
+		for (int run = 0; run < to; run++) {
+			experiment.nextEpoch();
+			experiment.startRun();
+			experiment.reportDelay(1);
+			experiment.countDecision(1);
+			ProtocolStats stats = new ProtocolStats();
+			stats.sent[0] = 7;
+			stats.ballots = run + 1;
+			experiment.recordProtocolStats(stats);
+			if (run >= from) {
+				store.append(c, SEED, to, run, SEED + run, experiment);
+			}
+			experiment.finishRun();
+		}
+	}
+
+	private static SweepConfig.Combination combination(Dissemination dissemination) {
+		return new SweepConfig.Combination(0, 5, 2, 100, 0.1, dissemination, 4, 20, 60, true, CrashPoint.GATHER,
+				Backoff.OFF, false, SweepConfig.Combination.DEFAULT_DISPATCHER);
+	}
+
+	private static List<Long> box(long[] values) {
+		List<Long> list = new ArrayList<>();
+		for (long v : values) {
+			list.add(v);
+		}
+		return list;
+	}
+}